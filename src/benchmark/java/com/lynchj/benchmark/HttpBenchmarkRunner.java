@@ -0,0 +1,179 @@
+package com.lynchj.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.JSONArray;
+import com.alibaba.fastjson.JSONObject;
+
+/**
+ * 运行压测并与基线比较, 由 benchmark profile 在 Maven 构建中调用
+ * 	结果以JSON写入 benchmark.result(默认 target/jmh-result.json), 并打印每组的吞吐量、p99 延迟和每次请求的分配量;
+ * 	指定 benchmark.baseline 时与基线比较, 吞吐量下降或 p99 上升超过 benchmark.tolerance(默认0.2)时以非0状态退出, 使构建失败;
+ * 	命令行参数按 JMH 的格式解析, 如: -f 1 -wi 1 -i 2 HttpFaultBenchmark
+ *
+ * @author 大漠知秋
+ */
+public class HttpBenchmarkRunner {
+
+    /** 结果文件 */
+    private static final String RESULT_PROPERTY = "benchmark.result";
+
+    /** 基线文件 */
+    private static final String BASELINE_PROPERTY = "benchmark.baseline";
+
+    /** 允许的退化比例 */
+    private static final String TOLERANCE_PROPERTY = "benchmark.tolerance";
+
+    public static void main(String[] args) throws Exception {
+
+        CommandLineOptions commandLineOptions = new CommandLineOptions(args);
+        String resultFile = System.getProperty(RESULT_PROPERTY, "target/jmh-result.json");
+        OptionsBuilder builder = new OptionsBuilder();
+        builder.parent(commandLineOptions)
+                .addProfiler(GCProfiler.class)
+                .resultFormat(ResultFormatType.JSON)
+                .result(resultFile);
+        if (commandLineOptions.getIncludes().isEmpty()) {
+            builder.include("com\\.lynchj\\.benchmark\\..*Benchmark");
+        }
+        Options options = builder.build();
+        new Runner(options).run();
+
+        Map<String, JSONObject> results = load(new File(resultFile));
+        printSummary(results);
+
+        String baseline = System.getProperty(BASELINE_PROPERTY, "");
+        if (baseline.trim().isEmpty()) {
+            return;
+        }
+        File baselineFile = new File(baseline.trim());
+        if (!baselineFile.isFile()) {
+            System.err.println("基线文件不存在, 跳过比较: " + baselineFile);
+            return;
+        }
+        double tolerance = Double.parseDouble(System.getProperty(TOLERANCE_PROPERTY, "0.2"));
+        List<String> regressions = compare(load(baselineFile), results, tolerance);
+        if (!regressions.isEmpty()) {
+            System.err.println("性能退化超过 " + tolerance * 100 + "%:");
+            for (String regression : regressions) {
+                System.err.println("  " + regression);
+            }
+            System.exit(1);
+        }
+        System.out.println("与基线比较没有超过 " + tolerance * 100 + "% 的退化");
+
+    }
+
+    /**
+     * 读取JMH的JSON结果
+     *
+     * @param file 结果文件
+     * @return 方法+模式+参数 - 结果
+     * @throws IOException
+     */
+    private static Map<String, JSONObject> load(File file) throws IOException {
+
+        JSONArray array = JSON.parseArray(new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8));
+        Map<String, JSONObject> results = new LinkedHashMap<>();
+        for (int i = 0; i < array.size(); i++) {
+            JSONObject result = array.getJSONObject(i);
+            results.put(key(result), result);
+        }
+        return results;
+
+    }
+
+    private static String key(JSONObject result) {
+
+        JSONObject params = result.getJSONObject("params");
+        return result.getString("benchmark") + " " + result.getString("mode") + (null == params ? "" : " " + new TreeMap<>(params));
+
+    }
+
+    /**
+     * 打印吞吐量、p99 延迟和分配量
+     *
+     * @param results 结果
+     */
+    private static void printSummary(Map<String, JSONObject> results) {
+
+        System.out.println();
+        System.out.println("压测结果:");
+        for (Map.Entry<String, JSONObject> entry : results.entrySet()) {
+            JSONObject primary = entry.getValue().getJSONObject("primaryMetric");
+            StringBuilder sb = new StringBuilder("  ").append(entry.getKey()).append(": ");
+            if ("thrpt".equals(entry.getValue().getString("mode"))) {
+                sb.append(String.format("%.2f %s", primary.getDoubleValue("score"), primary.getString("scoreUnit")));
+            } else {
+                sb.append(String.format("p99 %.3f %s", p99(primary), primary.getString("scoreUnit")));
+            }
+            JSONObject secondary = entry.getValue().getJSONObject("secondaryMetrics");
+            JSONObject allocation = null == secondary ? null : secondary.getJSONObject("gc.alloc.rate.norm");
+            if (null != allocation) {
+                sb.append(String.format(", %.0f B/op", allocation.getDoubleValue("score")));
+            }
+            System.out.println(sb);
+        }
+
+    }
+
+    /**
+     * 与基线比较, 吞吐量按分数比较, 采样模式按 p99 比较
+     *
+     * @param baseline 基线
+     * @param results 本次结果
+     * @param tolerance 允许的退化比例
+     * @return 退化说明
+     */
+    private static List<String> compare(Map<String, JSONObject> baseline, Map<String, JSONObject> results, double tolerance) {
+
+        List<String> regressions = new ArrayList<>();
+        for (Map.Entry<String, JSONObject> entry : results.entrySet()) {
+            JSONObject base = baseline.get(entry.getKey());
+            if (null == base) {
+                continue;
+            }
+            JSONObject current = entry.getValue().getJSONObject("primaryMetric");
+            JSONObject previous = base.getJSONObject("primaryMetric");
+            if ("thrpt".equals(entry.getValue().getString("mode"))) {
+                double now = current.getDoubleValue("score");
+                double before = previous.getDoubleValue("score");
+                if (now < before * (1 - tolerance)) {
+                    regressions.add(String.format("%s: %.2f -> %.2f %s", entry.getKey(), before, now, current.getString("scoreUnit")));
+                }
+            } else {
+                double now = p99(current);
+                double before = p99(previous);
+                if (before > 0 && now > before * (1 + tolerance)) {
+                    regressions.add(String.format("%s: p99 %.3f -> %.3f %s", entry.getKey(), before, now, current.getString("scoreUnit")));
+                }
+            }
+        }
+        return regressions;
+
+    }
+
+    private static double p99(JSONObject primaryMetric) {
+
+        JSONObject percentiles = primaryMetric.getJSONObject("scorePercentiles");
+        return null == percentiles ? primaryMetric.getDoubleValue("score") : percentiles.getDoubleValue("99.0");
+
+    }
+
+}
@@ -0,0 +1,78 @@
+package com.lynchj.benchmark;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.lynchj.utils.socket.HttpConnectionPoolManager;
+import com.lynchj.utils.socket.HttpRequestUtils;
+
+/**
+ * 服务端有延迟、偶发断开连接和5xx响应时的吞吐量和延迟, 覆盖重试、退避和连接重建的开销
+ *
+ * @author 大漠知秋
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 3)
+@Fork(1)
+@Threads(16)
+public class HttpFaultBenchmark {
+
+    /** 超时时间(毫秒) */
+    private static final Integer TIME_OUT = 5 * 1000;
+
+    /** 服务端响应延迟(毫秒) */
+    @Param({ "5" })
+    public long latencyMillis;
+
+    /** 断开连接的比例 */
+    @Param({ "0.01" })
+    public double dropRate;
+
+    /** 响应码, 503 会按重试策略退避重试 */
+    @Param({ "200", "503" })
+    public int status;
+
+    private StubHttpServer server;
+
+    private String url;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+
+        server = new StubHttpServer().setLatencyMillis(latencyMillis).setDropRate(dropRate).setStatus(status).start();
+        url = server.getUrl("/fault");
+        HttpConnectionPoolManager.warmUp(Collections.singletonList(url), 16);
+
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        server.stop();
+    }
+
+    @Benchmark
+    public String httpGet() throws URISyntaxException {
+        return HttpRequestUtils.httpGet(url, Collections.<String, Object>emptyMap(), Collections.<String, Object>emptyMap(), TIME_OUT, false, null);
+    }
+
+}
@@ -0,0 +1,152 @@
+package com.lynchj.benchmark;
+
+import java.io.UnsupportedEncodingException;
+import java.net.URISyntaxException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.lynchj.enums.HttpMethodEnum;
+import com.lynchj.utils.socket.HttpConnectionPoolManager;
+import com.lynchj.utils.socket.HttpRequestTemplate;
+import com.lynchj.utils.socket.HttpRequestUtils;
+import com.lynchj.utils.socket.HttpTransports;
+
+/**
+ * HttpRequestUtils 各请求方法的吞吐量和延迟
+ * 	吞吐量模式得到 ops/ms, 采样模式得到 p99 等延迟分位数, 配合 -prof gc 得到每次请求的分配量;
+ * 	每组参数在单独的 JVM 中运行, 连接池设置互不影响;
+ * 	transport 为 h2 时通过 Http2Transport 访问 h2c 桩服务, 所有请求复用一条连接, maxPerRoute 不起作用
+ *
+ * @author 大漠知秋
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 3)
+@Fork(1)
+@Threads(16)
+public class HttpRequestBenchmark {
+
+    /** 超时时间(毫秒) */
+    private static final Integer TIME_OUT = 5 * 1000;
+
+    /** 每个路由最大连接数, 小于线程数时测量连接池租借等待 */
+    @Param({ "4", "20" })
+    public int maxPerRoute;
+
+    /** 响应体大小(字节) */
+    @Param({ "128", "16384" })
+    public int payloadSize;
+
+    /** 传输层: http1 为连接池, h2 为 HTTP/2 */
+    @Param({ "http1", "h2" })
+    public String transport;
+
+    private StubServer server;
+
+    private String url;
+
+    private Map<String, Object> headers;
+
+    private Map<String, Object> params;
+
+    private List<Map<String, Object>> body;
+
+    private HttpRequestTemplate getTemplate;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+
+        if ("h2".equals(transport)) {
+            server = new StubH2Server().setPayloadSize(payloadSize).start();
+            HttpTransports.useHttp2();
+        } else {
+            server = new StubHttpServer().setPayloadSize(payloadSize).start();
+            HttpTransports.useHttp1();
+        }
+        url = server.getUrl("/api");
+        HttpConnectionPoolManager.setDefaultMaxPerRoute(maxPerRoute);
+
+        headers = new HashMap<>();
+        headers.put("X-Request-From", "benchmark");
+        params = new HashMap<>();
+        params.put("name", "大漠知秋");
+        params.put("id", 42);
+        params.put("keyword", "a b&c");
+
+        body = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            Map<String, Object> item = new HashMap<>();
+            item.put("id", i);
+            item.put("name", "item-" + i);
+            body.add(item);
+        }
+
+        getTemplate = new HttpRequestTemplate(HttpMethodEnum.GET, url, headers, "name", "id", "keyword");
+
+        // 建立连接, 排除首次握手对预热的影响
+        if ("h2".equals(transport)) {
+            HttpRequestUtils.httpGet(url, headers, params, TIME_OUT, false, null);
+        } else {
+            HttpConnectionPoolManager.warmUp(Collections.singletonList(url), maxPerRoute);
+        }
+
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        HttpTransports.useHttp1();
+        server.stop();
+    }
+
+    @Benchmark
+    public String httpGet() throws URISyntaxException {
+        return HttpRequestUtils.httpGet(url, headers, params, TIME_OUT, false, null);
+    }
+
+    @Benchmark
+    public String httpGetStream() throws URISyntaxException {
+        return HttpRequestUtils.httpGet(url, headers, params, TIME_OUT, true, null);
+    }
+
+    @Benchmark
+    public String httpGetTemplate() {
+        return getTemplate.execute(TIME_OUT, false, null, "大漠知秋", 42, "a b&c");
+    }
+
+    @Benchmark
+    public String httpPost() throws UnsupportedEncodingException {
+        return HttpRequestUtils.httpPost(url, headers, params, TIME_OUT, false, null);
+    }
+
+    @Benchmark
+    public String httpPostByRequestBody() throws UnsupportedEncodingException {
+        return HttpRequestUtils.httpPostByRequestBody(url, headers, params, TIME_OUT, false, null);
+    }
+
+    @Benchmark
+    public String httpPostByJsonEntity() {
+        return HttpRequestUtils.httpPostByJsonEntity(url, headers, body, TIME_OUT, false, null);
+    }
+
+}
@@ -0,0 +1,160 @@
+package com.lynchj.benchmark;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.hc.core5.http.ContentType;
+import org.apache.hc.core5.http.EntityDetails;
+import org.apache.hc.core5.http.HttpException;
+import org.apache.hc.core5.http.HttpRequest;
+import org.apache.hc.core5.http.Message;
+import org.apache.hc.core5.http.impl.bootstrap.HttpAsyncServer;
+import org.apache.hc.core5.http.nio.AsyncRequestConsumer;
+import org.apache.hc.core5.http.nio.AsyncServerRequestHandler;
+import org.apache.hc.core5.http.nio.entity.BasicAsyncEntityProducer;
+import org.apache.hc.core5.http.nio.entity.NoopEntityConsumer;
+import org.apache.hc.core5.http.nio.support.AsyncResponseBuilder;
+import org.apache.hc.core5.http.nio.support.BasicRequestConsumer;
+import org.apache.hc.core5.http.protocol.HttpContext;
+import org.apache.hc.core5.http2.HttpVersionPolicy;
+import org.apache.hc.core5.http2.impl.nio.bootstrap.H2ServerBootstrap;
+import org.apache.hc.core5.io.CloseMode;
+import org.apache.hc.core5.reactor.ListenerEndpoint;
+
+/**
+ * 只监听回环地址的 HTTP/2 明文(h2c, prior knowledge)桩服务, 用于压测 Http2Transport, 不访问外部网络
+ * 	所有路径返回相同的响应, 可以在运行中调整: 响应延迟、响应体大小、响应码;
+ * 	请求体会被完整读取并丢弃, 响应延迟由单独的调度线程触发, 不阻塞 I/O 线程
+ *
+ * @author 大漠知秋
+ */
+public class StubH2Server implements StubServer {
+
+    /** 服务 */
+    private final HttpAsyncServer server;
+
+    /** 延迟响应的调度线程 */
+    private final ScheduledExecutorService scheduler;
+
+    /** 监听端点, 启动后可用 */
+    private volatile ListenerEndpoint endpoint;
+
+    /** 响应延迟(毫秒) */
+    private volatile long latencyMillis = 0;
+
+    /** 响应码 */
+    private volatile int status = 200;
+
+    /** 响应体 */
+    private volatile byte[] payload = StubHttpServer.jsonPayload(128);
+
+    /** 已处理的请求数 */
+    private final LongAdder requestCount = new LongAdder();
+
+    public StubH2Server() {
+
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "stub-h2-server-scheduler");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.server = H2ServerBootstrap.bootstrap()
+                .setVersionPolicy(HttpVersionPolicy.FORCE_HTTP_2)
+                .register("*", new StubHandler())
+                .create();
+
+    }
+
+    @Override
+    public StubH2Server start() {
+
+        server.start();
+        try {
+            endpoint = server.listen(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0)).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("桩服务启动被中断", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("桩服务监听失败", e.getCause());
+        }
+        return this;
+
+    }
+
+    @Override
+    public void stop() {
+        server.close(CloseMode.IMMEDIATE);
+        scheduler.shutdownNow();
+    }
+
+    @Override
+    public String getUrl(String path) {
+        InetSocketAddress address = (InetSocketAddress) endpoint.getAddress();
+        return "http://" + address.getAddress().getHostAddress() + ":" + address.getPort() + path;
+    }
+
+    @Override
+    public StubH2Server setLatencyMillis(long latencyMillis) {
+        this.latencyMillis = latencyMillis;
+        return this;
+    }
+
+    @Override
+    public StubH2Server setStatus(int status) {
+        this.status = status;
+        return this;
+    }
+
+    @Override
+    public StubH2Server setPayloadSize(int size) {
+        this.payload = StubHttpServer.jsonPayload(size);
+        return this;
+    }
+
+    @Override
+    public long getRequestCount() {
+        return requestCount.sum();
+    }
+
+    /**
+     * 读完请求体后按当前设置返回响应
+     */
+    private class StubHandler implements AsyncServerRequestHandler<Message<HttpRequest, Void>> {
+
+        @Override
+        public AsyncRequestConsumer<Message<HttpRequest, Void>> prepare(HttpRequest request, EntityDetails entityDetails, HttpContext context) {
+            return new BasicRequestConsumer<>(null == entityDetails ? null : new NoopEntityConsumer());
+        }
+
+        @Override
+        public void handle(Message<HttpRequest, Void> message, ResponseTrigger responseTrigger, HttpContext context) {
+
+            requestCount.increment();
+            Runnable respond = () -> {
+                try {
+                    responseTrigger.submitResponse(AsyncResponseBuilder.create(status)
+                            .setEntity(new BasicAsyncEntityProducer(payload, ContentType.APPLICATION_JSON))
+                            .build(), context);
+                } catch (HttpException | IOException e) {
+                    System.err.println("桩服务响应失败");
+                    e.printStackTrace();
+                }
+            };
+            long latency = latencyMillis;
+            if (latency > 0) {
+                scheduler.schedule(respond, latency, TimeUnit.MILLISECONDS);
+            } else {
+                respond.run();
+            }
+
+        }
+
+    }
+
+}
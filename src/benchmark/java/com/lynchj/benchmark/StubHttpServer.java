@@ -0,0 +1,186 @@
+package com.lynchj.benchmark;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * 只监听回环地址的 HTTP/1.1 桩服务, 用于压测, 不访问外部网络
+ * 	所有路径返回相同的响应, 可以在运行中调整: 响应延迟、响应体大小、响应码、连接断开比例;
+ * 	请求体会被完整读取并丢弃
+ *
+ * @author 大漠知秋
+ */
+public class StubHttpServer implements StubServer {
+
+    static {
+        // 响应头和响应体分两次写出, 不关闭 Nagle 算法时每个请求会等待对方的延迟确认(约40毫秒)
+        if (null == System.getProperty("sun.net.httpserver.nodelay")) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+    }
+
+    /** 服务 */
+    private final HttpServer server;
+
+    /** 处理线程池 */
+    private final ExecutorService executor;
+
+    /** 响应延迟(毫秒) */
+    private volatile long latencyMillis = 0;
+
+    /** 响应码 */
+    private volatile int status = 200;
+
+    /** 不返回响应直接断开连接的比例, 0 ~ 1 */
+    private volatile double dropRate = 0;
+
+    /** 响应体 */
+    private volatile byte[] payload = jsonPayload(128);
+
+    /** 已处理的请求数 */
+    private final LongAdder requestCount = new LongAdder();
+
+    /** 已断开的连接数 */
+    private final LongAdder dropCount = new LongAdder();
+
+    public StubHttpServer() throws IOException {
+
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 1024);
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = Executors.newCachedThreadPool(r -> {
+            Thread thread = new Thread(r, "stub-http-server-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.server.setExecutor(executor);
+        this.server.createContext("/", this::handle);
+
+    }
+
+    @Override
+    public StubHttpServer start() {
+        server.start();
+        return this;
+    }
+
+    @Override
+    public void stop() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    /**
+     * 请求地址
+     *
+     * @param path 路径, 如: /api
+     * @return http://127.0.0.1:端口/路径
+     */
+    @Override
+    public String getUrl(String path) {
+        InetSocketAddress address = server.getAddress();
+        return "http://" + address.getAddress().getHostAddress() + ":" + address.getPort() + path;
+    }
+
+    @Override
+    public StubHttpServer setLatencyMillis(long latencyMillis) {
+        this.latencyMillis = latencyMillis;
+        return this;
+    }
+
+    @Override
+    public StubHttpServer setStatus(int status) {
+        this.status = status;
+        return this;
+    }
+
+    public StubHttpServer setDropRate(double dropRate) {
+        this.dropRate = dropRate;
+        return this;
+    }
+
+    /**
+     * 设置响应体大小, 响应体为合法的JSON对象
+     *
+     * @param size 字节数
+     * @return 当前服务
+     */
+    @Override
+    public StubHttpServer setPayloadSize(int size) {
+        this.payload = jsonPayload(size);
+        return this;
+    }
+
+    @Override
+    public long getRequestCount() {
+        return requestCount.sum();
+    }
+
+    public long getDropCount() {
+        return dropCount.sum();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+
+        requestCount.increment();
+        try (InputStream inputStream = exchange.getRequestBody()) {
+            byte[] buffer = new byte[8192];
+            while (inputStream.read(buffer) != -1) {
+                // 丢弃请求体
+            }
+        }
+
+        if (latencyMillis > 0) {
+            try {
+                TimeUnit.MILLISECONDS.sleep(latencyMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        if (dropRate > 0 && ThreadLocalRandom.current().nextDouble() < dropRate) {
+            // 处理器抛出异常时服务端直接关闭连接, 客户端收不到响应
+            dropCount.increment();
+            throw new IOException("模拟连接断开");
+        }
+
+        byte[] body = payload;
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=UTF-8");
+        exchange.sendResponseHeaders(status, body.length == 0 ? -1 : body.length);
+        try (OutputStream outputStream = exchange.getResponseBody()) {
+            outputStream.write(body);
+        }
+
+    }
+
+    /**
+     * 生成指定大小的JSON响应体: {"data":"xxx..."}
+     *
+     * @param size 字节数
+     * @return 响应体
+     */
+    static byte[] jsonPayload(int size) {
+
+        String prefix = "{\"data\":\"";
+        String suffix = "\"}";
+        int fill = Math.max(0, size - prefix.length() - suffix.length());
+        char[] chars = new char[fill];
+        Arrays.fill(chars, 'x');
+        return (prefix + new String(chars) + suffix).getBytes(StandardCharsets.UTF_8);
+
+    }
+
+}
@@ -0,0 +1,36 @@
+package com.lynchj.benchmark;
+
+/**
+ * 压测用的桩服务, 只监听回环地址
+ *
+ * @author 大漠知秋
+ */
+public interface StubServer {
+
+    StubServer start();
+
+    void stop();
+
+    /**
+     * 请求地址
+     *
+     * @param path 路径, 如: /api
+     * @return http://127.0.0.1:端口/路径
+     */
+    String getUrl(String path);
+
+    StubServer setLatencyMillis(long latencyMillis);
+
+    StubServer setStatus(int status);
+
+    /**
+     * 设置响应体大小, 响应体为合法的JSON对象
+     *
+     * @param size 字节数
+     * @return 当前服务
+     */
+    StubServer setPayloadSize(int size);
+
+    long getRequestCount();
+
+}
@@ -14,6 +14,9 @@ public enum ErrorStatusEnum implements BaseEnum {
 	NULL_VALUE_ERROR(1003, "空值错误"),
 	NO_PROPERTIES_NAME_ANNOTATION_ERROR(1004, "传入的类属性中没有加入@PropertiesName注解"),
 	EXCEL_LAYOUT_ERROR(1005, "只支持'.xls'和'.xlsx'格式的Excel文档"),
+	HTTP_CLIENT_SHUTDOWN_ERROR(1006, "Http客户端已关闭"),
+	HTTP_ASYNC_CLIENT_INIT_ERROR(1007, "异步Http客户端初始化失败"),
+	HTTP_CLIENT_INIT_ERROR(1008, "Http客户端初始化失败"),
 	;
 	
 	private Integer code;
@@ -0,0 +1,32 @@
+package com.lynchj.enums;
+
+/**
+ * Http请求方式
+ *
+ * @author 大漠知秋
+ */
+public enum HttpMethodEnum {
+
+	GET("GET", "get请求, 参数拼接在url上"),
+	POST("POST", "post请求, 参数以表单方式提交"),
+	POST_BY_REQUEST_BODY("POST", "post请求, 参数以json请求体方式提交"),
+	;
+
+	private String value;
+
+	private String msg;
+
+	public String getValue() {
+		return value;
+	}
+
+	public String getMsg() {
+		return msg;
+	}
+
+	private HttpMethodEnum(String value, String msg) {
+		this.value = value;
+		this.msg = msg;
+	}
+
+}
@@ -19,4 +19,9 @@ public class LynchjException extends RuntimeException {
 		this.code = baseEnum.getCode();
 	}
 	
+	public LynchjException(BaseEnum baseEnum, Throwable cause) {
+		super(baseEnum.getMsg(), cause);
+		this.code = baseEnum.getCode();
+	}
+	
 }
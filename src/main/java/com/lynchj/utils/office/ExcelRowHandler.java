@@ -0,0 +1,20 @@
+package com.lynchj.utils.office;
+
+/**
+ * 流式导入时逐行接收转换后的对象
+ * 
+ * @author 大漠知秋
+ */
+@FunctionalInterface
+public interface ExcelRowHandler<T> {
+
+	/**
+	 * 处理一行记录, 抛出异常时停止导入, 异常原样抛给调用方
+	 * 
+	 * @param rowNum 行号, 从0开始, 与Excel中的行对应
+	 * @param pojo 转换后的对象
+	 * @throws Exception
+	 */
+	void handle(int rowNum, T pojo) throws Exception;
+
+}
@@ -3,22 +3,43 @@ package com.lynchj.utils.office;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
+import java.io.InputStream;
 import java.lang.reflect.Field;
 import java.math.BigDecimal;
+import java.text.ParseException;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Date;
+import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import org.apache.poi.hssf.usermodel.HSSFCell;
 import org.apache.poi.hssf.usermodel.HSSFRow;
 import org.apache.poi.hssf.usermodel.HSSFSheet;
 import org.apache.poi.hssf.usermodel.HSSFWorkbook;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.ss.SpreadsheetVersion;
 import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.DataFormatter;
+import org.apache.poi.ss.usermodel.DateUtil;
 import org.apache.poi.ss.usermodel.Row;
 import org.apache.poi.ss.usermodel.Sheet;
 import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.ss.util.CellReference;
+import org.apache.poi.ss.util.NumberToTextConverter;
+import org.apache.poi.util.SAXHelper;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.apache.poi.xssf.eventusermodel.XSSFSheetXMLHandler;
+import org.apache.poi.xssf.eventusermodel.XSSFSheetXMLHandler.SheetContentsHandler;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.apache.poi.xssf.usermodel.XSSFComment;
 import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.xml.sax.InputSource;
+import org.xml.sax.XMLReader;
 
 import com.lynchj.annotation.PropertiesName;
 import com.lynchj.enums.DateFormatEnum;
@@ -41,6 +62,15 @@ import com.lynchj.exception.LynchjException;
  */
 public class ExcelUtils {
 
+	/** 流式导出时内存中保留的行数, 超出的行写入临时文件 */
+	public static final int DEFAULT_WINDOW_SIZE = 100;
+
+	/** xlsx 每个工作表的最大行数, 包含标题行 */
+	private static final int XLSX_MAX_ROWS = SpreadsheetVersion.EXCEL2007.getMaxRows();
+
+	/** 类 - 带 @PropertiesName 注解的属性 */
+	private static final ConcurrentMap<Class<?>, Field[]> PROPERTIES_FIELDS = new ConcurrentHashMap<>();
+
 	public ExcelUtils() {
 		throw new LynchjException(ErrorStatusEnum.CREATE_UTILS_ENTITY_ERROR);
 	}
@@ -221,6 +251,275 @@ public class ExcelUtils {
 
 	}
 
+	/**
+	 * 流式导出到 xlsx, 内存中只保留 {@link #DEFAULT_WINDOW_SIZE} 行, 与总行数无关
+	 * 
+	 * @param iterator 要导出的记录, 逐条读取, 不要求全部加载到内存
+	 * @param clazz 记录的类型, 只导出打上 @PropertiesName 注解的属性
+	 * @param outFile 输出地址, 必须是 .xlsx
+	 * @return 导出的记录数
+	 * @throws Exception
+	 */
+	public static <T> long pojo2ExcelStream(Iterator<? extends T> iterator, Class<T> clazz, File outFile) throws Exception {
+		return pojo2ExcelStream(iterator, clazz, outFile, DEFAULT_WINDOW_SIZE);
+	}
+
+	/**
+	 * 流式导出到 xlsx
+	 * 	内存中只保留最近的 windowSize 行, 更早的行写入压缩的临时文件, 字符串直接写在单元格中, 不使用共享字符串表;
+	 * 	工作表写满 1048576 行后自动新建工作表, 每个工作表都有标题行;
+	 * 	日期按 yyyy-MM-dd HH:mm:ss 写出, 与 excel2Pojo 的日期解析一致, 为null的属性不创建单元格
+	 * 
+	 * @param iterator 要导出的记录, 逐条读取, 不要求全部加载到内存
+	 * @param clazz 记录的类型, 只导出打上 @PropertiesName 注解的属性
+	 * @param outFile 输出地址, 必须是 .xlsx
+	 * @param windowSize 内存中保留的行数
+	 * @return 导出的记录数
+	 * @throws Exception
+	 */
+	public static <T> long pojo2ExcelStream(Iterator<? extends T> iterator, Class<T> clazz, File outFile, int windowSize) throws Exception {
+
+		if (null == iterator || null == clazz || null == outFile || windowSize <= 0) {
+			throw new LynchjException(ErrorStatusEnum.NULL_VALUE_ERROR);
+		}
+		if (!outFile.getName().endsWith("xlsx")) {
+			throw new LynchjException(ErrorStatusEnum.EXCEL_LAYOUT_ERROR);
+		}
+		Field[] fields = getPropertiesFields(clazz);
+		if (fields.length == 0) {
+			throw new LynchjException(ErrorStatusEnum.NO_PROPERTIES_NAME_ANNOTATION_ERROR);
+		}
+
+		SXSSFWorkbook excel = new SXSSFWorkbook(windowSize);
+		// 临时文件与导出文件大小相当, 压缩后磁盘占用小得多
+		excel.setCompressTempFiles(true);
+		SimpleDateFormat sdf = new SimpleDateFormat(DateFormatEnum.FORMAT_ONE.getValue());
+		long count = 0;
+		try {
+			Sheet sheet = createSheetWithHead(excel, fields);
+			int rowIndex = 1;
+			while (iterator.hasNext()) {
+				T pojo = iterator.next();
+				if (null == pojo) {
+					continue;
+				}
+				// 写满后换新的工作表
+				if (rowIndex >= XLSX_MAX_ROWS) {
+					sheet = createSheetWithHead(excel, fields);
+					rowIndex = 1;
+				}
+				Row row = sheet.createRow(rowIndex++);
+				for (int j = 0; j < fields.length; j++) {
+					Object value = fields[j].get(pojo);
+					if (null != value) {
+						row.createCell(j).setCellValue(value instanceof Date ? sdf.format((Date) value) : value.toString());
+					}
+				}
+				count++;
+			}
+
+			try (FileOutputStream outputStream = new FileOutputStream(outFile)) {
+				excel.write(outputStream);
+			}
+		} finally {
+			// 删除临时文件
+			excel.dispose();
+			excel.close();
+		}
+		return count;
+
+	}
+
+	/**
+	 * 创建工作表并写入标题行
+	 * 
+	 * @param excel Excel对象
+	 * @param fields 带属性命名注解的属性
+	 * @return 工作表
+	 */
+	private static Sheet createSheetWithHead(Workbook excel, Field[] fields) {
+
+		Sheet sheet = excel.createSheet();
+		Row headRow = sheet.createRow(0);
+		for (int j = 0; j < fields.length; j++) {
+			headRow.createCell(j).setCellValue(fields[j].getAnnotation(PropertiesName.class).name());
+		}
+		return sheet;
+
+	}
+
+	/**
+	 * 获取类中打上 @PropertiesName 注解的属性, 按声明顺序, 已设置为可访问; 结果按类缓存
+	 * 
+	 * @param clazz 类
+	 * @return 属性
+	 */
+	private static Field[] getPropertiesFields(Class<?> clazz) {
+
+		Field[] fields = PROPERTIES_FIELDS.get(clazz);
+		if (null == fields) {
+			List<Field> annotated = new ArrayList<>();
+			for (Field field : clazz.getDeclaredFields()) {
+				if (field.isAnnotationPresent(PropertiesName.class)) {
+					field.setAccessible(true);
+					annotated.add(field);
+				}
+			}
+			fields = annotated.toArray(new Field[annotated.size()]);
+			PROPERTIES_FIELDS.putIfAbsent(clazz, fields);
+		}
+		return fields;
+
+	}
+
+	/**
+	 * 流式导入 xlsx 的第一个工作表, 逐行转换为对象交给处理器, 不把整个文档加载到内存
+	 * 	第一个非空行作为标题行, 按 @PropertiesName 注解对应到属性, 空行跳过;
+	 * 	按事件逐个解析单元格, 行数据只保留当前行;
+	 * 	共享字符串表会完整加载到内存, 大小与文档中不重复的文字量成正比, 文字列取值各不相同时仍会随行数增长,
+	 * 	SXSSFWorkbook 导出的文档默认使用内联字符串, 没有共享字符串表;
+	 * 	String 以外的属性遇到空白单元格不设置, 保持默认值
+	 * 
+	 * @param file Excel文件, 必须是 .xlsx
+	 * @param clazz 要转换的Pojo Class对象
+	 * @param handler 行处理器
+	 * @return 导入的记录数
+	 * @throws Exception
+	 */
+	public static <T> long excel2PojoStream(File file, Class<T> clazz, ExcelRowHandler<? super T> handler) throws Exception {
+
+		if (null == file || null == clazz || null == handler) {
+			throw new LynchjException(ErrorStatusEnum.NULL_VALUE_ERROR);
+		}
+		if (!file.getName().endsWith("xlsx")) {
+			throw new LynchjException(ErrorStatusEnum.EXCEL_LAYOUT_ERROR);
+		}
+
+		// 只读方式按需读取压缩包中的条目
+		OPCPackage pkg = OPCPackage.open(file, PackageAccess.READ);
+		try {
+			return excel2PojoStream(pkg, clazz, handler);
+		} finally {
+			pkg.revert();
+		}
+
+	}
+
+	/**
+	 * 流式导入 xlsx 的第一个工作表, 逐行转换为对象交给处理器
+	 * 	输入流需要先完整读取压缩包, 内存中保留的是压缩后的内容; 文件较大时使用 {@link #excel2PojoStream(File, Class, ExcelRowHandler)}
+	 * 
+	 * @param inputStream xlsx 输入流, 不会被关闭
+	 * @param clazz 要转换的Pojo Class对象
+	 * @param handler 行处理器
+	 * @return 导入的记录数
+	 * @throws Exception
+	 */
+	public static <T> long excel2PojoStream(InputStream inputStream, Class<T> clazz, ExcelRowHandler<? super T> handler) throws Exception {
+
+		if (null == inputStream || null == clazz || null == handler) {
+			throw new LynchjException(ErrorStatusEnum.NULL_VALUE_ERROR);
+		}
+
+		OPCPackage pkg = OPCPackage.open(inputStream);
+		try {
+			return excel2PojoStream(pkg, clazz, handler);
+		} finally {
+			pkg.revert();
+		}
+
+	}
+
+	private static <T> long excel2PojoStream(OPCPackage pkg, Class<T> clazz, ExcelRowHandler<? super T> handler) throws Exception {
+
+		XSSFReader xssfReader = new XSSFReader(pkg);
+		Iterator<InputStream> sheets = xssfReader.getSheetsData();
+		if (!sheets.hasNext()) {
+			return 0;
+		}
+
+		ReadOnlySharedStringsTable strings = new ReadOnlySharedStringsTable(pkg);
+		PojoSheetHandler<T> sheetHandler = new PojoSheetHandler<>(clazz, handler);
+		XMLReader xmlReader = SAXHelper.newXMLReader();
+		xmlReader.setContentHandler(new XSSFSheetXMLHandler(xssfReader.getStylesTable(), strings, sheetHandler, new PojoDataFormatter(), false));
+		try (InputStream sheet = sheets.next()) {
+			xmlReader.parse(new InputSource(sheet));
+		} catch (RowHandleException e) {
+			throw e.getCause();
+		}
+		return sheetHandler.count;
+
+	}
+
+	/**
+	 * 按标题找到每一列对应的属性
+	 * 
+	 * @param headNames 标题, 按列排列
+	 * @param clazz 要转换的Pojo Class对象
+	 * @return 每一列对应的属性, 没有对应的属性为null
+	 */
+	private static Field[] getColumnFields(List<String> headNames, Class<?> clazz) {
+
+		Field[] fields = getPropertiesFields(clazz);
+		Field[] columnFields = new Field[headNames.size()];
+		for (int j = 0; j < columnFields.length; j++) {
+			for (Field field : fields) {
+				if (field.getAnnotation(PropertiesName.class).name().equals(headNames.get(j))) {
+					columnFields[j] = field;
+					break;
+				}
+			}
+		}
+		return columnFields;
+
+	}
+
+	/**
+	 * 把单元格文字按属性类型转换后设置到对象中
+	 * 	支持 Integer、String、Double、BigDecimal、Date, 日期支持 DateFormatEnum 中的四种格式
+	 * 
+	 * @param pojo 对象
+	 * @param field 属性, 已设置为可访问
+	 * @param value 单元格文字
+	 * @param skipBlank String 以外的类型遇到空白文字时, true: 不设置; false: 照常转换, 数字类型抛出 NumberFormatException
+	 * @throws IllegalAccessException
+	 * @throws ParseException
+	 */
+	private static void setFieldValue(Object pojo, Field field, String value, boolean skipBlank) throws IllegalAccessException, ParseException {
+
+		Class<? extends Object> type = field.getType();
+		if (type.equals(String.class)) {
+			field.set(pojo, value);
+			return;
+		}
+		if (skipBlank && (null == value || value.trim().isEmpty())) {
+			return;
+		}
+		if (type.equals(Integer.class)) {
+			field.set(pojo, Integer.valueOf(value));
+		} else if (type.equals(Double.class)) {
+			field.set(pojo, new Double(value));
+		} else if (type.equals(BigDecimal.class)) {
+			field.set(pojo, new BigDecimal(value));
+		} else if (type.equals(Date.class)) {
+			SimpleDateFormat sdf = null;
+			// 验证 是否为:yyyy-MM-dd HH:mm:ss
+			if (value.matches(DateFormatEnum.REGEX_ONE.getValue())) {
+				sdf = new SimpleDateFormat(DateFormatEnum.FORMAT_ONE.getValue());
+			} else if (value.matches(DateFormatEnum.REGEX_TWO.getValue())) {
+				sdf = new SimpleDateFormat(DateFormatEnum.FORMAT_TWO.getValue());
+			} else if (value.matches(DateFormatEnum.REGEX_THREE.getValue())) {
+				sdf = new SimpleDateFormat(DateFormatEnum.FORMAT_THREE.getValue());
+			} else if (value.matches(DateFormatEnum.REGEX_FOUR.getValue())) {
+				sdf = new SimpleDateFormat(DateFormatEnum.FORMAT_FOUR.getValue());
+			}
+			if (null != sdf) {
+				field.set(pojo, sdf.parse(value));
+			}
+		}
+
+	}
+
 	/**
 	 * 判断传入的类是否在属性上加入了"属性命名"的注解
 	 * 
@@ -249,6 +548,8 @@ public class ExcelUtils {
 	
 	/**
 	 * Excel转换到Pojo
+	 * 	空白单元格转换为 Integer、Double、BigDecimal 时抛出 NumberFormatException;
+	 * 	不存在的行和单元格跳过, 对应的属性保持默认值
 	 * 
 	 * @param workbook Excel文档对象
 	 * @param clazz 要转换的Pojo Class对象
@@ -269,66 +570,29 @@ public class ExcelUtils {
 			int rowNum = sheet.getLastRowNum();
 			// 获取到标题行
 			Row headRow = sheet.getRow(0);
-			// 获取到标题总共有多少列
-			short cellNum = headRow.getLastCellNum();
+			// 按标题找到每一列对应的属性
+			List<String> headNames = new ArrayList<>();
+			for (int j = 0; j < headRow.getLastCellNum(); j++) {
+				Cell headCell = headRow.getCell(j);
+				headNames.add(null == headCell ? null : headCell.toString());
+			}
+			Field[] columnFields = getColumnFields(headNames, clazz);
 			
 			// 创建集合用来存储实例化的对象
 			poList = new ArrayList<>();
 			// 循环遍历每一行记录
 			for (int i = 1; i <= rowNum; i++) {
+				Row row = sheet.getRow(i);
+				if (null == row) {
+					continue;
+				}
 				// 创建实体类
 				T newPojo = clazz.newInstance();
-				// 遍历每一列记录
-				for (int j = 0; j < cellNum; j++) {
-					// 获取到标题文字
-					String headName = headRow.getCell(j).toString();
-					/**
-					 * 遍历要封装类的属性并获取起注解上方 属性命名 查看是否和当前Excel的标题相同
-					 * 	相同则封装
-					 * 	不同则不理
-					 */
-					// 获取所有的字段反射对象
-					Field[] declaredFields = clazz.getDeclaredFields();
-					for (Field field : declaredFields) {
-						field.setAccessible(true);
-						// 获取到注解类型
-						PropertiesName annotation = field.getAnnotation(PropertiesName.class);
-						// 获取到属性命名
-						String propertiesName = annotation.name();
-						if (headName.equals(propertiesName)) {
-							// Excel标题头和属性相对应
-							Class<? extends Object> type = field.getType();
-							if (type.equals(Integer.class)) {
-								field.set(newPojo, Integer.valueOf(sheet.getRow(i).getCell(j).toString()));
-							} else if (type.equals(String.class)) {
-								field.set(newPojo, sheet.getRow(i).getCell(j).toString());
-							} else if (type.equals(Double.class)) {
-								field.set(newPojo, new Double(sheet.getRow(i).getCell(j).toString()));
-							} else if (type.equals(BigDecimal.class)) {
-								field.set(newPojo, new BigDecimal(sheet.getRow(i).getCell(j).toString()));
-							} else if (type.equals(Date.class)) {
-								SimpleDateFormat sdf = null;
-								String dateStr = sheet.getRow(i).getCell(j).toString();
-								// 验证 是否为:yyyy-MM-dd HH:mm:ss
-								if (dateStr.matches(DateFormatEnum.REGEX_ONE.getValue())) {
-									sdf = new SimpleDateFormat(DateFormatEnum.FORMAT_ONE.getValue());
-									Date date = sdf.parse(dateStr);
-									field.set(newPojo, date);
-								} else if (dateStr.matches(DateFormatEnum.REGEX_TWO.getValue())) {
-									sdf = new SimpleDateFormat(DateFormatEnum.FORMAT_TWO.getValue());
-									Date date = sdf.parse(dateStr);
-									field.set(newPojo, date);
-								}  else if (dateStr.matches(DateFormatEnum.REGEX_THREE.getValue())) {
-									sdf = new SimpleDateFormat(DateFormatEnum.FORMAT_THREE.getValue());
-									Date date = sdf.parse(dateStr);
-									field.set(newPojo, date);
-								}  else if (dateStr.matches(DateFormatEnum.REGEX_FOUR.getValue())) {
-									sdf = new SimpleDateFormat(DateFormatEnum.FORMAT_FOUR.getValue());
-									Date date = sdf.parse(dateStr);
-									field.set(newPojo, date);
-								} 
-							}
-						}
+				// 遍历每一列记录, 标题和属性命名相同则封装, 不同则不理
+				for (int j = 0; j < columnFields.length; j++) {
+					Cell cell = row.getCell(j);
+					if (null != columnFields[j] && null != cell) {
+						setFieldValue(newPojo, columnFields[j], cell.toString(), false);
 					}
 				}
 				poList.add(newPojo);
@@ -340,4 +604,127 @@ public class ExcelUtils {
 		
 	}
 	
+	/**
+	 * 逐行接收单元格, 第一个非空行作为标题行, 之后每行转换为对象交给处理器
+	 */
+	private static class PojoSheetHandler<T> implements SheetContentsHandler {
+
+		private final Class<T> clazz;
+
+		private final ExcelRowHandler<? super T> handler;
+
+		/** 当前行的单元格文字, 按列排列 */
+		private final List<String> values = new ArrayList<>();
+
+		/** 每一列对应的属性, 读到标题行之前为null */
+		private Field[] columnFields;
+
+		/** 当前行上一个单元格的列号 */
+		private int lastColumn;
+
+		/** 导入的记录数 */
+		private long count;
+
+		PojoSheetHandler(Class<T> clazz, ExcelRowHandler<? super T> handler) {
+			this.clazz = clazz;
+			this.handler = handler;
+		}
+
+		@Override
+		public void startRow(int rowNum) {
+			values.clear();
+			lastColumn = -1;
+		}
+
+		@Override
+		public void cell(String cellReference, String formattedValue, XSSFComment comment) {
+
+			// 没有单元格位置时按顺序排列
+			int column = null == cellReference ? lastColumn + 1 : new CellReference(cellReference).getCol();
+			lastColumn = column;
+			if (null != columnFields && column >= columnFields.length) {
+				return;
+			}
+			// 空单元格不会产生事件, 中间补null
+			while (values.size() <= column) {
+				values.add(null);
+			}
+			values.set(column, formattedValue);
+
+		}
+
+		@Override
+		public void endRow(int rowNum) {
+
+			if (values.isEmpty()) {
+				return;
+			}
+			if (null == columnFields) {
+				columnFields = getColumnFields(values, clazz);
+				return;
+			}
+			try {
+				T pojo = clazz.newInstance();
+				for (int j = 0; j < values.size(); j++) {
+					if (null != columnFields[j] && null != values.get(j)) {
+						setFieldValue(pojo, columnFields[j], values.get(j), true);
+					}
+				}
+				handler.handle(rowNum, pojo);
+				count++;
+			} catch (Exception e) {
+				// 解析事件中不能抛出受检异常, 包装后在解析结束处还原
+				throw new RowHandleException(e);
+			}
+
+		}
+
+		@Override
+		public void headerFooter(String text, boolean isHeader, String tagName) {
+		}
+
+	}
+
+	/**
+	 * 单元格格式化
+	 * 	日期格式的单元格按 yyyy-MM-dd HH:mm:ss 输出, 可以直接转换为 Date;
+	 * 	常规格式的数字输出完整的值, 整数不带 .0, 不按显示宽度截断
+	 */
+	private static class PojoDataFormatter extends DataFormatter {
+
+		private final SimpleDateFormat sdf = new SimpleDateFormat(DateFormatEnum.FORMAT_ONE.getValue());
+
+		@Override
+		public String formatRawCellContents(double value, int formatIndex, String formatString, boolean use1904Windowing) {
+
+			if (DateUtil.isADateFormat(formatIndex, formatString) && DateUtil.isValidExcelDate(value)) {
+				return sdf.format(DateUtil.getJavaDate(value, use1904Windowing));
+			}
+			if (0 == formatIndex || "General".equalsIgnoreCase(formatString)) {
+				return NumberToTextConverter.toText(value);
+			}
+			return super.formatRawCellContents(value, formatIndex, formatString, use1904Windowing);
+
+		}
+
+	}
+
+	/**
+	 * 包装行处理中的异常
+	 */
+	private static class RowHandleException extends RuntimeException {
+
+		private static final long serialVersionUID = 1L;
+
+		RowHandleException(Exception cause) {
+			super(cause);
+		}
+
+		@Override
+		public synchronized Exception getCause() {
+			return (Exception) super.getCause();
+		}
+
+	}
+	
 }
@@ -0,0 +1,218 @@
+package com.lynchj.utils.socket;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.pool.PoolStats;
+
+/**
+ * 自适应的路由连接数调整
+ * 	定时检查每个路由的等待租借数和响应耗时:
+ * 	有请求在等待连接且耗时没有明显上升时增加连接数,
+ * 	耗时明显上升时按比例减少, 但有请求在等待连接时只在耗时仍在上升时减少, 避免连接数被压到下限后饿死等待的请求;
+ * 	连接长期用不满时逐步回收, 始终保持在上下限之间;
+ * 	耗时基线每次调整时向当前耗时回升, 个别很快的请求或请求组成的长期变化不会让路由一直被判为饱和
+ *
+ * @author 大漠知秋
+ */
+class AdaptiveRouteLimiter {
+
+    /** 耗时超过基线的倍数时认为下游已饱和 */
+    private static final double LATENCY_TOLERANCE = 2.0;
+
+    /** 耗时至少上升多少毫秒才认为下游已饱和, 避免基线很小时误判 */
+    private static final double MIN_LATENCY_INCREASE_MILLIS = 10;
+
+    /** 耗时平滑系数 */
+    private static final double EWMA_ALPHA = 0.2;
+
+    /** 每次调整时基线向当前耗时回升的比例 */
+    private static final double BASELINE_RECOVERY = 0.1;
+
+    /** 耗时比上次调整时高出此比例时认为仍在上升 */
+    private static final double RISING_TOLERANCE = 0.05;
+
+    /** 每个路由的最小连接数 */
+    private final int minPerRoute;
+
+    /** 每个路由的最大连接数 */
+    private final int maxPerRoute;
+
+    /** 手动指定连接数的路由, 不参与自动调整 */
+    private final Set<HttpRoute> pinnedRoutes;
+
+    /** 每个路由的耗时记录 */
+    private final ConcurrentMap<HttpRoute, RouteLatency> latencies = new ConcurrentHashMap<>();
+
+    /** 调整线程 */
+    private final ScheduledExecutorService scheduler;
+
+    AdaptiveRouteLimiter(int minPerRoute, int maxPerRoute, long intervalMillis, Set<HttpRoute> pinnedRoutes) {
+
+        this.minPerRoute = minPerRoute;
+        this.maxPerRoute = maxPerRoute;
+        this.pinnedRoutes = pinnedRoutes;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "lynchj-http-adaptive-route-limiter");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.scheduler.scheduleWithFixedDelay(this::adjust, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+
+    }
+
+    /**
+     * 记录一次响应耗时
+     *
+     * @param route 路由
+     * @param nanos 耗时(纳秒)
+     */
+    void record(HttpRoute route, long nanos) {
+
+        RouteLatency latency = latencies.get(route);
+        if (null == latency) {
+            latency = latencies.computeIfAbsent(route, key -> new RouteLatency());
+        }
+        latency.record(nanos / 1000000.0);
+
+    }
+
+    /**
+     * 停止调整, 已调整的连接数保持不变
+     */
+    void stop() {
+        scheduler.shutdownNow();
+    }
+
+    /**
+     * 调整一次所有路由的连接数
+     */
+    void adjust() {
+
+        PoolingHttpClientConnectionManager connManager = HttpRequestUtils.getConnectionManagerIfInitialized();
+        if (null == connManager) {
+            return;
+        }
+
+        try {
+            for (HttpRoute route : connManager.getRoutes()) {
+                if (pinnedRoutes.contains(route)) {
+                    continue;
+                }
+
+                PoolStats stats = connManager.getStats(route);
+                int current = connManager.getMaxPerRoute(route);
+                RouteLatency latency = latencies.get(route);
+                boolean saturated = null != latency && latency.isSaturated();
+                boolean rising = null != latency && latency.tick();
+
+                int target = current;
+                if (stats.getPending() > 0) {
+                    if (!saturated) {
+                        // 有请求在等待连接, 按等待数增加, 每次最多翻倍
+                        target = current + Math.min(current, stats.getPending());
+                    } else if (rising) {
+                        // 下游耗时仍在上升, 按比例减少
+                        target = current * 3 / 4;
+                    }
+                    // 已饱和但耗时稳定时保持不变, 继续减少只会让等待的请求更多
+                } else if (saturated) {
+                    // 下游耗时明显上升, 按比例减少
+                    target = current * 3 / 4;
+                } else if (stats.getLeased() < current / 2) {
+                    // 连接用不满, 逐步回收
+                    target = current - 1;
+                }
+
+                target = Math.max(minPerRoute, Math.min(maxPerRoute, target));
+                if (target != current) {
+                    connManager.setMaxPerRoute(route, target);
+                }
+            }
+        } catch (RuntimeException e) {
+            System.err.println("调整路由连接数出错");
+            e.printStackTrace();
+        }
+
+    }
+
+    /**
+     * 单个路由的耗时: 平滑后的当前耗时和基线耗时
+     * 	基线在出现更低的耗时时立即下降, 每次调整时向当前耗时回升一部分
+     */
+    private static class RouteLatency {
+
+        /** 平滑后的耗时(毫秒), 以 double 位存储 */
+        private final AtomicLong ewmaBits = new AtomicLong(Double.doubleToLongBits(-1));
+
+        /** 基线耗时(毫秒), 以 double 位存储 */
+        private final AtomicLong baselineBits = new AtomicLong(Double.doubleToLongBits(Double.MAX_VALUE));
+
+        /** 上次调整时的平滑耗时(毫秒), 只由调整线程读写 */
+        private double lastEwma = -1;
+
+        void record(double millis) {
+
+            long prevBits;
+            double next;
+            do {
+                prevBits = ewmaBits.get();
+                double prev = Double.longBitsToDouble(prevBits);
+                next = prev < 0 ? millis : prev + EWMA_ALPHA * (millis - prev);
+            } while (!ewmaBits.compareAndSet(prevBits, Double.doubleToLongBits(next)));
+
+            long baseBits;
+            while (next < Double.longBitsToDouble(baseBits = baselineBits.get())) {
+                if (baselineBits.compareAndSet(baseBits, Double.doubleToLongBits(next))) {
+                    break;
+                }
+            }
+
+        }
+
+        /**
+         * 每次调整时调用: 基线向当前耗时回升, 并判断耗时是否比上次调整时仍在上升
+         *
+         * @return true: 仍在上升
+         */
+        boolean tick() {
+
+            double ewma = Double.longBitsToDouble(ewmaBits.get());
+            if (ewma < 0) {
+                return false;
+            }
+
+            long baseBits;
+            double baseline;
+            while ((baseline = Double.longBitsToDouble(baseBits = baselineBits.get())) < ewma) {
+                double recovered = baseline + BASELINE_RECOVERY * (ewma - baseline);
+                if (baselineBits.compareAndSet(baseBits, Double.doubleToLongBits(recovered))) {
+                    break;
+                }
+            }
+
+            boolean rising = lastEwma >= 0 && ewma > lastEwma * (1 + RISING_TOLERANCE);
+            lastEwma = ewma;
+            return rising;
+
+        }
+
+        boolean isSaturated() {
+
+            double ewma = Double.longBitsToDouble(ewmaBits.get());
+            double baseline = Double.longBitsToDouble(baselineBits.get());
+            return ewma >= 0 && baseline < Double.MAX_VALUE
+                    && ewma > Math.max(baseline * LATENCY_TOLERANCE, baseline + MIN_LATENCY_INCREASE_MILLIS);
+
+        }
+
+    }
+
+}
@@ -0,0 +1,468 @@
+package com.lynchj.utils.socket;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+
+import javax.net.ssl.SSLContext;
+
+import org.apache.http.Header;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpResponse;
+import org.apache.http.client.ClientProtocolException;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.client.methods.HttpRequestBase;
+import org.apache.http.client.protocol.HttpClientContext;
+import org.apache.http.client.protocol.ResponseProcessCookies;
+import org.apache.http.concurrent.FutureCallback;
+import org.apache.http.config.Registry;
+import org.apache.http.config.RegistryBuilder;
+import org.apache.http.impl.nio.client.CloseableHttpAsyncClient;
+import org.apache.http.impl.nio.client.HttpAsyncClients;
+import org.apache.http.impl.nio.conn.PoolingNHttpClientConnectionManager;
+import org.apache.http.impl.nio.reactor.DefaultConnectingIOReactor;
+import org.apache.http.impl.nio.reactor.IOReactorConfig;
+import org.apache.http.nio.conn.NoopIOSessionStrategy;
+import org.apache.http.nio.conn.SchemeIOSessionStrategy;
+import org.apache.http.nio.conn.ssl.SSLIOSessionStrategy;
+import org.apache.http.nio.reactor.IOReactorException;
+import org.apache.http.ssl.SSLContexts;
+import org.apache.http.util.EntityUtils;
+
+import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.TypeReference;
+import com.lynchj.enums.ErrorStatusEnum;
+import com.lynchj.exception.LynchjException;
+
+/**
+ * 基于HttpAsyncClient(NIO)实现的异步Http请求工具
+ * 	少量I/O线程即可同时维持大量在途请求, 调用线程不会阻塞等待响应
+ * 	请求头、请求参数和 HttpClientContext 的处理方式与 HttpRequestUtils 保持一致
+ *
+ * @author 大漠知秋
+ *
+ *
+ * <dependency>
+ *    <groupId>org.apache.httpcomponents</groupId>
+ *    <artifactId>httpasyncclient</artifactId>
+ *    <version>4.1.2</version>
+ * </dependency>
+ */
+public class AsyncHttpRequestUtils {
+
+    public AsyncHttpRequestUtils() {
+        throw new LynchjException(ErrorStatusEnum.CREATE_UTILS_ENTITY_ERROR);
+    }
+
+    /** I/O线程数 */
+    private static final int IO_THREAD_COUNT = Runtime.getRuntime().availableProcessors();
+
+    /** 异步客户端, 第一次使用时创建 */
+    private static volatile CloseableHttpAsyncClient asyncClient;
+
+    /** 是否已关闭 */
+    private static volatile boolean shutdown = false;
+
+    /**
+     * post请求,支持SSL
+     *
+     * @param url 请求地址
+     * @param headers 请求头信息
+     * @param params 请求参数
+     * @param timeOut 超时时间(毫秒):从连接池获取连接的时间,请求时间,响应时间
+     * @param clientContext Http请求客户端上下文对象，包含Cookie
+     * @return 响应信息, 非200响应为"-1", 网络异常时异常完成
+     */
+    public static CompletableFuture<String> httpPostAsync(String url, Map<String, Object> headers, Map<String, Object> params, Integer timeOut, HttpClientContext clientContext) {
+
+        try {
+            return execute(HttpRequestUtils.buildHttpPost(url, headers, params), timeOut, clientContext);
+        } catch (Exception e) {
+            return failedFuture(e);
+        }
+
+    }
+
+    /**
+     * post请求,支持SSL
+     *
+     * @param url 请求地址
+     * @param params 请求参数
+     * @param timeOut 超时时间(毫秒):从连接池获取连接的时间,请求时间,响应时间
+     * @param clientContext Http请求客户端上下文对象，包含Cookie
+     * @return 响应信息, 非200响应为"-1", 网络异常时异常完成
+     */
+    public static CompletableFuture<String> httpPostAsync(String url, Map<String, Object> params, Integer timeOut, HttpClientContext clientContext) {
+        return httpPostAsync(url, null, params, timeOut, clientContext);
+    }
+
+    /**
+     * post请求,响应按JSON转换为指定类型,支持SSL
+     *
+     * @param url 请求地址
+     * @param headers 请求头信息
+     * @param params 请求参数
+     * @param timeOut 超时时间(毫秒):从连接池获取连接的时间,请求时间,响应时间
+     * @param clientContext Http请求客户端上下文对象，包含Cookie
+     * @param clazz 响应类型
+     * @return 响应对象, 非200响应为null
+     */
+    public static <T> CompletableFuture<T> httpPostAsync(String url, Map<String, Object> headers, Map<String, Object> params, Integer timeOut, HttpClientContext clientContext, Class<T> clazz) {
+        return httpPostAsync(url, headers, params, timeOut, clientContext).thenApplyAsync(result -> parseResult(result, clazz), HttpExecutors.getExecutor());
+    }
+
+    /**
+     * post请求,响应按JSON转换为指定泛型类型,支持SSL
+     *
+     * @param url 请求地址
+     * @param headers 请求头信息
+     * @param params 请求参数
+     * @param timeOut 超时时间(毫秒):从连接池获取连接的时间,请求时间,响应时间
+     * @param clientContext Http请求客户端上下文对象，包含Cookie
+     * @param typeReference 响应泛型类型
+     * @return 响应对象, 非200响应为null
+     */
+    public static <T> CompletableFuture<T> httpPostAsync(String url, Map<String, Object> headers, Map<String, Object> params, Integer timeOut, HttpClientContext clientContext, TypeReference<T> typeReference) {
+        return httpPostAsync(url, headers, params, timeOut, clientContext).thenApplyAsync(result -> parseResult(result, typeReference), HttpExecutors.getExecutor());
+    }
+
+    /**
+     * post请求 请求体方式,支持SSL
+     *
+     * @param url 请求地址
+     * @param headers 请求头信息
+     * @param params 请求参数
+     * @param timeOut 超时时间(毫秒):从连接池获取连接的时间,请求时间,响应时间
+     * @param clientContext Http请求客户端上下文对象，包含Cookie
+     * @return 响应信息, 非200响应为"-1", 网络异常时异常完成
+     */
+    public static CompletableFuture<String> httpPostByRequestBodyAsync(String url, Map<String, Object> headers, Map<String, Object> params, Integer timeOut, HttpClientContext clientContext) {
+
+        try {
+            return execute(HttpRequestUtils.buildHttpPostByRequestBody(url, headers, params), timeOut, clientContext);
+        } catch (Exception e) {
+            return failedFuture(e);
+        }
+
+    }
+
+    /**
+     * post请求 请求体方式,响应按JSON转换为指定类型,支持SSL
+     *
+     * @param url 请求地址
+     * @param headers 请求头信息
+     * @param params 请求参数
+     * @param timeOut 超时时间(毫秒):从连接池获取连接的时间,请求时间,响应时间
+     * @param clientContext Http请求客户端上下文对象，包含Cookie
+     * @param clazz 响应类型
+     * @return 响应对象, 非200响应为null
+     */
+    public static <T> CompletableFuture<T> httpPostByRequestBodyAsync(String url, Map<String, Object> headers, Map<String, Object> params, Integer timeOut, HttpClientContext clientContext, Class<T> clazz) {
+        return httpPostByRequestBodyAsync(url, headers, params, timeOut, clientContext).thenApplyAsync(result -> parseResult(result, clazz), HttpExecutors.getExecutor());
+    }
+
+    /**
+     * post请求 请求体方式,响应按JSON转换为指定泛型类型,支持SSL
+     *
+     * @param url 请求地址
+     * @param headers 请求头信息
+     * @param params 请求参数
+     * @param timeOut 超时时间(毫秒):从连接池获取连接的时间,请求时间,响应时间
+     * @param clientContext Http请求客户端上下文对象，包含Cookie
+     * @param typeReference 响应泛型类型
+     * @return 响应对象, 非200响应为null
+     */
+    public static <T> CompletableFuture<T> httpPostByRequestBodyAsync(String url, Map<String, Object> headers, Map<String, Object> params, Integer timeOut, HttpClientContext clientContext, TypeReference<T> typeReference) {
+        return httpPostByRequestBodyAsync(url, headers, params, timeOut, clientContext).thenApplyAsync(result -> parseResult(result, typeReference), HttpExecutors.getExecutor());
+    }
+
+    /**
+     * get请求,支持SSL
+     *
+     * @param url 请求地址
+     * @param headers 请求头信息
+     * @param params 请求参数
+     * @param timeOut 超时时间(毫秒):从连接池获取连接的时间,请求时间,响应时间
+     * @param clientContext Http请求客户端上下文对象，包含Cookie
+     * @return 响应信息, 非200响应为"-1", 网络异常时异常完成
+     */
+    public static CompletableFuture<String> httpGetAsync(String url, Map<String, Object> headers, Map<String, Object> params, Integer timeOut, HttpClientContext clientContext) {
+
+        try {
+            return execute(HttpRequestUtils.buildHttpGet(url, headers, params), timeOut, clientContext);
+        } catch (Exception e) {
+            return failedFuture(e);
+        }
+
+    }
+
+    /**
+     * get请求,支持SSL
+     *
+     * @param url 请求地址
+     * @param params 请求参数
+     * @param timeOut 超时时间(毫秒):从连接池获取连接的时间,请求时间,响应时间
+     * @param clientContext Http请求客户端上下文对象，包含Cookie
+     * @return 响应信息, 非200响应为"-1", 网络异常时异常完成
+     */
+    public static CompletableFuture<String> httpGetAsync(String url, Map<String, Object> params, Integer timeOut, HttpClientContext clientContext) {
+        return httpGetAsync(url, null, params, timeOut, clientContext);
+    }
+
+    /**
+     * get请求,响应按JSON转换为指定类型,支持SSL
+     *
+     * @param url 请求地址
+     * @param headers 请求头信息
+     * @param params 请求参数
+     * @param timeOut 超时时间(毫秒):从连接池获取连接的时间,请求时间,响应时间
+     * @param clientContext Http请求客户端上下文对象，包含Cookie
+     * @param clazz 响应类型
+     * @return 响应对象, 非200响应为null
+     */
+    public static <T> CompletableFuture<T> httpGetAsync(String url, Map<String, Object> headers, Map<String, Object> params, Integer timeOut, HttpClientContext clientContext, Class<T> clazz) {
+        return httpGetAsync(url, headers, params, timeOut, clientContext).thenApplyAsync(result -> parseResult(result, clazz), HttpExecutors.getExecutor());
+    }
+
+    /**
+     * get请求,响应按JSON转换为指定泛型类型,支持SSL
+     *
+     * @param url 请求地址
+     * @param headers 请求头信息
+     * @param params 请求参数
+     * @param timeOut 超时时间(毫秒):从连接池获取连接的时间,请求时间,响应时间
+     * @param clientContext Http请求客户端上下文对象，包含Cookie
+     * @param typeReference 响应泛型类型
+     * @return 响应对象, 非200响应为null
+     */
+    public static <T> CompletableFuture<T> httpGetAsync(String url, Map<String, Object> headers, Map<String, Object> params, Integer timeOut, HttpClientContext clientContext, TypeReference<T> typeReference) {
+        return httpGetAsync(url, headers, params, timeOut, clientContext).thenApplyAsync(result -> parseResult(result, typeReference), HttpExecutors.getExecutor());
+    }
+
+    /**
+     * 在 {@link HttpExecutors} 的执行器上运行阻塞调用, 如 HttpRequestUtils 的同步请求方法,
+     * 开启虚拟线程模式后每个调用使用一个虚拟线程
+     *
+     * @param call 阻塞调用
+     * @return 调用结果, 调用抛出异常时异常完成
+     */
+    public static <T> CompletableFuture<T> supplyAsync(Callable<T> call) {
+
+        CompletableFuture<T> future = new CompletableFuture<>();
+        try {
+            HttpExecutors.getExecutor().execute(() -> {
+                try {
+                    future.complete(call.call());
+                } catch (Throwable e) {
+                    future.completeExceptionally(e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            future.completeExceptionally(e);
+        }
+        return future;
+
+    }
+
+    /**
+     * 关闭异步客户端, 与 {@link HttpClientRegistry#shutdown()} 一样关闭后不能再发起请求, 之后的请求异常完成
+     */
+    public static synchronized void shutdown() {
+
+        shutdown = true;
+        if (null != asyncClient) {
+            try {
+                asyncClient.close();
+            } catch (IOException e) {
+                System.err.println("关闭异步客户端出错");
+                e.printStackTrace();
+            }
+            asyncClient = null;
+        }
+
+    }
+
+    /**
+     * 发起异步请求
+     *
+     * @param httpRequest 请求对象
+     * @param timeOut 超时时间(毫秒)
+     * @param clientContext Http请求客户端上下文对象，包含Cookie
+     * @return 响应信息
+     */
+    static CompletableFuture<String> execute(HttpRequestBase httpRequest, Integer timeOut, HttpClientContext clientContext) {
+
+        CompletableFuture<String> resultFuture = new CompletableFuture<>();
+        httpRequest.setConfig(HttpClientRegistry.getRequestConfig(timeOut));
+        HttpClientContext context = null != clientContext ? clientContext : HttpClientContext.create();
+
+        Future<HttpResponse> responseFuture = getAsyncClient().execute(httpRequest, context, new FutureCallback<HttpResponse>() {
+
+            @Override
+            public void completed(HttpResponse response) {
+                try {
+                    int respCode = response.getStatusLine().getStatusCode();
+                    // 如果是重定向
+                    if (302 == respCode) {
+                        Header location = response.getLastHeader("Location");
+                        if (null == location) {
+                            throw new ClientProtocolException("302 响应缺少 Location");
+                        }
+                        execute(new HttpPost(location.getValue()), timeOut, clientContext).whenComplete((result, e) -> {
+                            if (null != e) {
+                                resultFuture.completeExceptionally(e);
+                            } else {
+                                resultFuture.complete(result);
+                            }
+                        });
+                        return;
+                    }
+                    String result = HttpRequestUtils.RESULT;
+                    // 正确响应
+                    if (200 == respCode) {
+                        HttpEntity entity = response.getEntity();
+                        String body = null == entity ? "" : EntityUtils.toString(entity, HttpRequestUtils.ENCODING);
+                        if (!"".equals(body.trim())) {
+                            result = body;
+                        }
+                    }
+                    resultFuture.complete(result);
+                } catch (Exception e) {
+                    // 回调中的异常不会传给调用方, 不处理时返回的 CompletableFuture 永远不会完成
+                    resultFuture.completeExceptionally(e);
+                }
+            }
+
+            @Override
+            public void failed(Exception ex) {
+                resultFuture.completeExceptionally(ex);
+            }
+
+            @Override
+            public void cancelled() {
+                resultFuture.cancel(false);
+            }
+
+        });
+
+        // 调用方取消时同时取消底层请求
+        resultFuture.whenComplete((result, e) -> {
+            if (resultFuture.isCancelled()) {
+                responseFuture.cancel(true);
+            }
+        });
+
+        return resultFuture;
+
+    }
+
+    /**
+     * 获取异步客户端, 第一次调用时创建并启动
+     *
+     * @return 异步客户端
+     * @throws LynchjException 已关闭
+     */
+    private static CloseableHttpAsyncClient getAsyncClient() {
+
+        CloseableHttpAsyncClient client = asyncClient;
+        if (null == client) {
+            synchronized (AsyncHttpRequestUtils.class) {
+                if (shutdown) {
+                    throw new LynchjException(ErrorStatusEnum.HTTP_CLIENT_SHUTDOWN_ERROR);
+                }
+                client = asyncClient;
+                if (null == client) {
+                    client = createAsyncClient();
+                    client.start();
+                    asyncClient = client;
+                }
+            }
+        }
+
+        return client;
+
+    }
+
+    /**
+     * 创建异步客户端, SSL配置与同步客户端一致
+     *
+     * @return 异步客户端
+     */
+    private static CloseableHttpAsyncClient createAsyncClient() {
+
+        try {
+            SSLContext sslContext = HttpRequestUtils.getSharedSSLContext();
+            if (null == sslContext) {
+                sslContext = SSLContexts.createDefault();
+            }
+
+            // 注册
+            Registry<SchemeIOSessionStrategy> registry = RegistryBuilder.<SchemeIOSessionStrategy>create()
+                    .register("http", NoopIOSessionStrategy.INSTANCE)
+                    .register("https", new SSLIOSessionStrategy(sslContext, HttpSslContexts.getProtocols(sslContext),
+                            HttpSslContexts.getCipherSuites(sslContext), SSLIOSessionStrategy.getDefaultHostnameVerifier()))
+                    .build();
+
+            IOReactorConfig ioReactorConfig = IOReactorConfig.custom()
+                    .setIoThreadCount(IO_THREAD_COUNT)
+                    .build();
+
+            PoolingNHttpClientConnectionManager connManager = new PoolingNHttpClientConnectionManager(new DefaultConnectingIOReactor(ioReactorConfig), registry);
+            connManager.setMaxTotal(1000);    // 连接池最大连接数
+            connManager.setDefaultMaxPerRoute(HttpRequestUtils.DEFAULT_MAX_PER_ROUTE);    // 每个路由最大连接数
+
+            return HttpAsyncClients.custom()
+                    .setConnectionManager(connManager)
+                    .setDefaultRequestConfig(HttpClientRegistry.getRequestConfig(null))
+                    // ConcurrentCookieStore 按目标主机取Cookie
+                    .disableCookieManagement()
+                    .addInterceptorLast(new RequestAddHostCookies())
+                    .addInterceptorLast(new ResponseProcessCookies())
+                    .build();
+        } catch (IOReactorException e) {
+            e.printStackTrace();
+            throw new LynchjException(ErrorStatusEnum.HTTP_ASYNC_CLIENT_INIT_ERROR);
+        }
+
+    }
+
+    /**
+     * 响应信息按JSON转换为指定类型
+     *
+     * @param result 响应信息
+     * @param clazz 类型
+     * @return 转换后的对象, 出错返回结果时为null
+     */
+    private static <T> T parseResult(String result, Class<T> clazz) {
+        return HttpRequestUtils.RESULT.equals(result) ? null : JSON.parseObject(result, clazz);
+    }
+
+    /**
+     * 响应信息按JSON转换为指定泛型类型
+     *
+     * @param result 响应信息
+     * @param typeReference 泛型类型
+     * @return 转换后的对象, 出错返回结果时为null
+     */
+    private static <T> T parseResult(String result, TypeReference<T> typeReference) {
+        return HttpRequestUtils.RESULT.equals(result) ? null : JSON.parseObject(result, typeReference);
+    }
+
+    /**
+     * 创建异常完成的结果
+     *
+     * @param e 异常
+     * @return 异常完成的结果
+     */
+    private static <T> CompletableFuture<T> failedFuture(Throwable e) {
+
+        CompletableFuture<T> future = new CompletableFuture<>();
+        future.completeExceptionally(e);
+        return future;
+
+    }
+
+}
@@ -0,0 +1,270 @@
+package com.lynchj.utils.socket;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.http.client.CookieStore;
+import org.apache.http.cookie.Cookie;
+
+/**
+ * 线程安全的Cookie存储, 可以直接替换 BasicCookieStore 设置到 HttpClientContext 中
+ * 	按域名索引, 域名内按名称和路径区分, 同名、同域名、同路径的Cookie互相覆盖, 写入不加全局锁; 路径不建索引, 由 HttpClient 匹配;
+ * 	本工具包的客户端(同步、异步、HTTP/2)发送请求时通过 {@link RequestAddHostCookies} 只取目标主机及其上级域名的Cookie, 不扫描其它域名;
+ * 	{@link #getCookies()} 返回不可变快照, 没有写入时所有读取共用同一个快照, 不加锁也不复制;
+ * 	过期的Cookie不主动扫描, 请求时 HttpClient 发现过期会调用 {@link #clearExpired(Date)} 清理
+ *
+ * @author 大漠知秋
+ */
+public class ConcurrentCookieStore implements CookieStore {
+
+    /** 域名 - (名称;路径 - Cookie) */
+    private final ConcurrentMap<String, ConcurrentMap<String, Cookie>> cookies = new ConcurrentHashMap<>();
+
+    /** 版本号, 每次修改后加一 */
+    private final AtomicLong version = new AtomicLong();
+
+    /** 最近一次生成的快照 */
+    private volatile Snapshot snapshot = new Snapshot(0, Collections.emptyList());
+
+    /**
+     * 添加Cookie, 替换同名、同域名、同路径的Cookie, 已过期时只删除原有的
+     *
+     * @param cookie Cookie
+     */
+    @Override
+    public void addCookie(Cookie cookie) {
+
+        if (null == cookie) {
+            return;
+        }
+        String domain = domainKey(cookie.getDomain());
+        String key = cookieKey(cookie);
+        if (cookie.isExpired(new Date())) {
+            ConcurrentMap<String, Cookie> domainCookies = cookies.get(domain);
+            if (null != domainCookies && null != domainCookies.remove(key)) {
+                version.incrementAndGet();
+            }
+            return;
+        }
+        // 与清理空域名在同一个域名上互斥, 避免写入已被移除的集合
+        cookies.compute(domain, (k, domainCookies) -> {
+            ConcurrentMap<String, Cookie> target = null == domainCookies ? new ConcurrentHashMap<>() : domainCookies;
+            target.put(key, cookie);
+            return target;
+        });
+        version.incrementAndGet();
+
+    }
+
+    /**
+     * 所有Cookie的快照, 可能包含已过期但尚未清理的Cookie
+     *
+     * @return 不可变集合
+     */
+    @Override
+    public List<Cookie> getCookies() {
+
+        long current = version.get();
+        Snapshot last = snapshot;
+        if (last.version == current) {
+            return last.cookies;
+        }
+
+        List<Cookie> all = new ArrayList<>();
+        for (ConcurrentMap<String, Cookie> domainCookies : cookies.values()) {
+            all.addAll(domainCookies.values());
+        }
+        List<Cookie> result = Collections.unmodifiableList(all);
+        // 生成期间有修改时不保存, 下次读取重新生成
+        if (version.get() == current) {
+            snapshot = new Snapshot(current, result);
+        }
+        return result;
+
+    }
+
+    /**
+     * 指定主机可用的Cookie, 只查找主机及其上级域名, 不扫描其它域名, 不包含已过期的Cookie
+     *
+     * @param host 主机, 如: api.lynchj.com
+     * @return Cookie集合
+     */
+    public List<Cookie> getCookies(String host) {
+        return lookup(host, new Date());
+    }
+
+    /**
+     * 只能看到指定主机及其上级域名Cookie的存储, 写入和清理直接作用于本存储
+     *
+     * @param host 主机
+     * @return Cookie存储
+     */
+    CookieStore forHost(String host) {
+        return new HostCookieStore(host);
+    }
+
+    /**
+     * 按域名索引查找主机及其上级域名的Cookie
+     *
+     * @param host 主机
+     * @param now 当前时间, 为null时包含已过期的Cookie
+     * @return Cookie集合
+     */
+    private List<Cookie> lookup(String host, Date now) {
+
+        List<Cookie> result = new ArrayList<>();
+        if (null == host) {
+            return result;
+        }
+        String domain = domainKey(host);
+        while (true) {
+            ConcurrentMap<String, Cookie> domainCookies = cookies.get(domain);
+            if (null != domainCookies) {
+                for (Cookie cookie : domainCookies.values()) {
+                    if (null == now || !cookie.isExpired(now)) {
+                        result.add(cookie);
+                    }
+                }
+            }
+            int dot = domain.indexOf('.');
+            if (dot < 0) {
+                break;
+            }
+            domain = domain.substring(dot + 1);
+        }
+        return result;
+
+    }
+
+    /**
+     * 删除指定时间之前过期的Cookie
+     *
+     * @param date 时间
+     * @return true: 有Cookie被删除
+     */
+    @Override
+    public boolean clearExpired(Date date) {
+
+        if (null == date) {
+            return false;
+        }
+        boolean removed = false;
+        for (String domain : cookies.keySet()) {
+            ConcurrentMap<String, Cookie> domainCookies = cookies.get(domain);
+            if (null != domainCookies && domainCookies.values().removeIf(cookie -> cookie.isExpired(date))) {
+                removed = true;
+                cookies.computeIfPresent(domain, (k, v) -> v.isEmpty() ? null : v);
+            }
+        }
+        if (removed) {
+            version.incrementAndGet();
+        }
+        return removed;
+
+    }
+
+    @Override
+    public void clear() {
+        cookies.clear();
+        version.incrementAndGet();
+    }
+
+    /**
+     * Cookie数量, 包含已过期但尚未清理的Cookie
+     *
+     * @return 数量
+     */
+    public int size() {
+        return getCookies().size();
+    }
+
+    @Override
+    public String toString() {
+        return getCookies().toString();
+    }
+
+    /**
+     * 域名索引: 小写, 去掉开头的点
+     *
+     * @param domain 域名
+     * @return 索引
+     */
+    private static String domainKey(String domain) {
+
+        if (null == domain) {
+            return "";
+        }
+        String key = domain.toLowerCase(Locale.ROOT);
+        return key.startsWith(".") ? key.substring(1) : key;
+
+    }
+
+    /**
+     * 域名内的索引: 名称;路径, 没有路径时为 /
+     *
+     * @param cookie Cookie
+     * @return 索引
+     */
+    private static String cookieKey(Cookie cookie) {
+
+        String path = cookie.getPath();
+        return cookie.getName() + ";" + (null == path ? "/" : path);
+
+    }
+
+    /**
+     * 限定主机的视图, 包含已过期的Cookie, HttpClient 发现过期时调用 {@link #clearExpired(Date)} 清理
+     */
+    private class HostCookieStore implements CookieStore {
+
+        private final String host;
+
+        HostCookieStore(String host) {
+            this.host = host;
+        }
+
+        @Override
+        public void addCookie(Cookie cookie) {
+            ConcurrentCookieStore.this.addCookie(cookie);
+        }
+
+        @Override
+        public List<Cookie> getCookies() {
+            return lookup(host, null);
+        }
+
+        @Override
+        public boolean clearExpired(Date date) {
+            return ConcurrentCookieStore.this.clearExpired(date);
+        }
+
+        @Override
+        public void clear() {
+            ConcurrentCookieStore.this.clear();
+        }
+
+    }
+
+    /**
+     * 带版本号的快照
+     */
+    private static class Snapshot {
+
+        final long version;
+
+        final List<Cookie> cookies;
+
+        Snapshot(long version, List<Cookie> cookies) {
+            this.version = version;
+            this.cookies = cookies;
+        }
+
+    }
+
+}
@@ -0,0 +1,78 @@
+package com.lynchj.utils.socket;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import org.apache.http.entity.ContentType;
+import org.apache.http.entity.mime.MIME;
+import org.apache.http.entity.mime.content.AbstractContentBody;
+
+/**
+ * 通过 FileChannel 发送的文件内容, 每次发送重新打开文件, 内存占用与文件大小无关
+ *
+ * @author 大漠知秋
+ */
+class FileChannelBody extends AbstractContentBody {
+
+    /** 文件 */
+    private final Path path;
+
+    /** 文件名 */
+    private final String fileName;
+
+    FileChannelBody(Path path, ContentType contentType, String fileName) {
+        super(contentType);
+        this.path = path;
+        this.fileName = fileName;
+    }
+
+    @Override
+    public String getFilename() {
+        return fileName;
+    }
+
+    @Override
+    public void writeTo(OutputStream out) throws IOException {
+
+        try (FileChannel fileChannel = FileChannel.open(path, StandardOpenOption.READ)) {
+            // HTTP/1.1 的阻塞连接和 HTTP/2 的请求体生产者都只提供 OutputStream, 不暴露 SocketChannel,
+            // transferTo 在内部以固定大小的缓冲区复制
+            WritableByteChannel target = Channels.newChannel(out);
+            long size = fileChannel.size();
+            long position = 0;
+            while (position < size) {
+                long transferred = fileChannel.transferTo(position, size - position, target);
+                // 写入目标是阻塞的, 传输0字节说明文件在发送过程中被截断, 继续循环不会结束
+                if (transferred <= 0) {
+                    throw new IOException("文件在上传过程中被截断: " + path + ", 已发送 " + position + " / " + size + " 字节");
+                }
+                position += transferred;
+            }
+        }
+        out.flush();
+
+    }
+
+    @Override
+    public String getTransferEncoding() {
+        return MIME.ENC_BINARY;
+    }
+
+    @Override
+    public long getContentLength() {
+
+        try {
+            return Files.size(path);
+        } catch (IOException e) {
+            return -1;
+        }
+
+    }
+
+}
@@ -0,0 +1,518 @@
+package com.lynchj.utils.socket;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import javax.net.ssl.SSLContext;
+
+import org.apache.hc.client5.http.impl.async.CloseableHttpAsyncClient;
+import org.apache.hc.client5.http.impl.async.H2AsyncClientBuilder;
+import org.apache.hc.client5.http.ssl.ClientTlsStrategyBuilder;
+import org.apache.hc.core5.concurrent.FutureCallback;
+import org.apache.hc.core5.http.EntityDetails;
+import org.apache.hc.core5.http.nio.AsyncEntityProducer;
+import org.apache.hc.core5.http.nio.AsyncResponseConsumer;
+import org.apache.hc.core5.http.nio.CapacityChannel;
+import org.apache.hc.core5.http.nio.support.BasicRequestProducer;
+import org.apache.hc.core5.http.nio.support.classic.AbstractClassicEntityProducer;
+import org.apache.hc.core5.http.nio.support.classic.ContentInputStream;
+import org.apache.hc.core5.http.nio.support.classic.SharedInputBuffer;
+import org.apache.hc.core5.http.protocol.HttpContext;
+import org.apache.hc.core5.io.CloseMode;
+import org.apache.hc.core5.reactor.IOReactorConfig;
+import org.apache.hc.core5.ssl.SSLContexts;
+import org.apache.http.Header;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpEntityEnclosingRequest;
+import org.apache.http.HttpException;
+import org.apache.http.HttpHost;
+import org.apache.http.HttpRequest;
+import org.apache.http.ProtocolVersion;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.entity.DeflateDecompressingEntity;
+import org.apache.http.client.entity.GzipDecompressingEntity;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpRequestBase;
+import org.apache.http.client.methods.HttpRequestWrapper;
+import org.apache.http.client.protocol.HttpClientContext;
+import org.apache.http.client.protocol.ResponseProcessCookies;
+import org.apache.http.client.utils.URIUtils;
+import org.apache.http.config.Lookup;
+import org.apache.http.conn.ConnectTimeoutException;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.cookie.CookieSpecProvider;
+import org.apache.http.entity.BasicHttpEntity;
+import org.apache.http.impl.client.CookieSpecRegistries;
+import org.apache.http.message.BasicHttpResponse;
+import org.apache.http.message.BasicStatusLine;
+
+import com.lynchj.enums.ErrorStatusEnum;
+import com.lynchj.exception.LynchjException;
+
+/**
+ * HTTP/2 传输层, 基于 HttpClient 5.x
+ * 	每个主机只建立一个连接, 并发请求在同一连接上以多个流复用;
+ * 	https 通过 ALPN 协商 h2, http 直接使用 h2c(prior knowledge), 服务端必须支持 HTTP/2;
+ * 	请求体和响应体按流传输, 不在内存中完整缓冲, 响应体按 HTTP/2 流量控制边读边收;
+ * 	上下文中的 CookieStore 与 HTTP/1.1 传输层一样按 4.x 的 Cookie 规范读写, 重试策略只对默认的 HTTP/1.1 传输层生效
+ *
+ * @author 大漠知秋
+ */
+public class Http2Transport implements HttpTransport {
+
+    /** 响应协议版本 */
+    private static final ProtocolVersion HTTP_2 = new ProtocolVersion("HTTP", 2, 0);
+
+    /** 不能转发到 HTTP/2 请求中的请求头 */
+    private static final Set<String> EXCLUDED_HEADERS = new HashSet<>(Arrays.asList(
+            "connection", "keep-alive", "proxy-connection", "transfer-encoding", "te", "upgrade", "host",
+            "content-length", "content-type", "content-encoding"));
+
+    /** 请求体和响应体的缓冲区大小 */
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    /** 上下文中没有 Cookie 规范时使用的默认规范, 与 HTTP/1.1 客户端一致 */
+    private static final Lookup<CookieSpecProvider> COOKIE_SPEC_REGISTRY = CookieSpecRegistries.createDefault();
+
+    /** 客户端, 第一次请求时创建 */
+    private volatile CloseableHttpAsyncClient httpClient;
+
+    /** 是否已关闭 */
+    private volatile boolean shutdown = false;
+
+    @Override
+    public CloseableHttpResponse execute(HttpRequestBase httpRequest, HttpClientContext clientContext) throws IOException {
+
+        // 在副本上添加 Cookie, 不修改原请求, 跳转或重试时不会重复添加
+        HttpRequest request = httpRequest;
+        if (null != clientContext) {
+            request = addCookies(httpRequest, clientContext);
+        }
+
+        StreamingResponseConsumer consumer = new StreamingResponseConsumer();
+        Future<Void> exchange = getHttpClient().execute(toRequestProducer(httpRequest, request), consumer, toH2Context(httpRequest), new FutureCallback<Void>() {
+
+            @Override
+            public void completed(Void result) {
+            }
+
+            @Override
+            public void failed(Exception ex) {
+                consumer.fail(ex);
+            }
+
+            @Override
+            public void cancelled() {
+                consumer.fail(new InterruptedIOException("请求已取消"));
+            }
+
+        });
+        consumer.exchange = exchange;
+
+        Http2Response response;
+        try {
+            response = consumer.head.get();
+        } catch (InterruptedException e) {
+            exchange.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("请求被中断");
+        } catch (ExecutionException e) {
+            exchange.cancel(true);
+            throw toIOException(e.getCause());
+        }
+
+        if (null != clientContext) {
+            try {
+                new ResponseProcessCookies().process(response, clientContext);
+            } catch (HttpException e) {
+                response.close();
+                throw new IOException(e);
+            }
+        }
+        return response;
+
+    }
+
+    @Override
+    public synchronized void shutdown() {
+
+        shutdown = true;
+        if (null != httpClient) {
+            httpClient.close(CloseMode.GRACEFUL);
+            httpClient = null;
+        }
+
+    }
+
+    /**
+     * 获取客户端, 第一次调用时创建并启动
+     *
+     * @return 客户端
+     */
+    private CloseableHttpAsyncClient getHttpClient() {
+
+        CloseableHttpAsyncClient client = httpClient;
+        if (null != client) {
+            return client;
+        }
+        synchronized (this) {
+            if (shutdown) {
+                throw new LynchjException(ErrorStatusEnum.HTTP_CLIENT_SHUTDOWN_ERROR);
+            }
+            if (null == httpClient) {
+                SSLContext sslContext = HttpRequestUtils.getSharedSSLContext();
+                if (null == sslContext) {
+                    sslContext = SSLContexts.createDefault();
+                }
+                client = H2AsyncClientBuilder.create()
+                        .setTlsStrategy(ClientTlsStrategyBuilder.create()
+                                .setSslContext(sslContext)
+                                .setTlsVersions(HttpSslContexts.getProtocols(sslContext))
+                                .setCiphers(HttpSslContexts.getCipherSuites(sslContext))
+                                .build())
+                        .setIOReactorConfig(IOReactorConfig.custom()
+                                .setIoThreadCount(Runtime.getRuntime().availableProcessors())
+                                .build())
+                        // 跳转由 HttpRequestUtils 处理
+                        .disableRedirectHandling()
+                        .disableAutomaticRetries()
+                        // Cookie 由 4.x 的上下文处理
+                        .disableCookieManagement()
+                        .build();
+                client.start();
+                httpClient = client;
+            }
+            return httpClient;
+        }
+
+    }
+
+    /**
+     * 按 4.x 客户端的方式从上下文的 CookieStore 中取出匹配的 Cookie 添加到请求副本中
+     * 	上下文会记录本次请求的 Cookie 来源, 响应后据此保存服务端设置的 Cookie
+     *
+     * @param httpRequest 请求对象
+     * @param clientContext Http请求客户端上下文对象
+     * @return 请求副本
+     * @throws IOException
+     */
+    private static HttpRequest addCookies(HttpRequestBase httpRequest, HttpClientContext clientContext) throws IOException {
+
+        URI uri = httpRequest.getURI();
+        HttpHost host = URIUtils.extractHost(uri);
+        if (null == host) {
+            return httpRequest;
+        }
+        boolean secure = "https".equalsIgnoreCase(host.getSchemeName());
+        // Cookie 来源的端口不能为负数
+        HttpHost target = host.getPort() < 0 ? new HttpHost(host.getHostName(), secure ? 443 : 80, host.getSchemeName()) : host;
+
+        clientContext.setAttribute(HttpClientContext.HTTP_TARGET_HOST, target);
+        clientContext.setAttribute(HttpClientContext.HTTP_ROUTE, new HttpRoute(target, null, secure));
+        if (null != httpRequest.getConfig()) {
+            clientContext.setRequestConfig(httpRequest.getConfig());
+        }
+        if (null == clientContext.getCookieSpecRegistry()) {
+            clientContext.setCookieSpecRegistry(COOKIE_SPEC_REGISTRY);
+        }
+
+        HttpRequestWrapper wrapper = HttpRequestWrapper.wrap(httpRequest, target);
+        try {
+            new RequestAddHostCookies().process(wrapper, clientContext);
+        } catch (HttpException e) {
+            throw new IOException(e);
+        }
+        return wrapper;
+
+    }
+
+    /**
+     * 转换为 HTTP/2 请求: 方法、地址、请求头和请求体, 请求体按流写出
+     *
+     * @param httpRequest 请求对象
+     * @param headerSource 请求头来源, 可能是添加了 Cookie 的副本
+     * @return 请求生产者
+     */
+    private static BasicRequestProducer toRequestProducer(HttpRequestBase httpRequest, HttpRequest headerSource) {
+
+        org.apache.hc.core5.http.message.BasicHttpRequest h2Request = new org.apache.hc.core5.http.message.BasicHttpRequest(httpRequest.getMethod(), httpRequest.getURI());
+        for (Header header : headerSource.getAllHeaders()) {
+            if (!EXCLUDED_HEADERS.contains(header.getName().toLowerCase())) {
+                h2Request.addHeader(header.getName(), header.getValue());
+            }
+        }
+        if (!h2Request.containsHeader("Accept-Encoding")) {
+            h2Request.addHeader("Accept-Encoding", "gzip,deflate");
+        }
+
+        AsyncEntityProducer entityProducer = null;
+        if (httpRequest instanceof HttpEntityEnclosingRequest) {
+            HttpEntity entity = ((HttpEntityEnclosingRequest) httpRequest).getEntity();
+            if (null != entity) {
+                entityProducer = new StreamingEntityProducer(entity);
+            }
+        }
+        return new BasicRequestProducer(h2Request, entityProducer);
+
+    }
+
+    /**
+     * 转换超时时间到 5.x 的上下文
+     *
+     * @param httpRequest 请求对象
+     * @return 上下文
+     */
+    private static org.apache.hc.client5.http.protocol.HttpClientContext toH2Context(HttpRequestBase httpRequest) {
+
+        org.apache.hc.client5.http.protocol.HttpClientContext h2Context = org.apache.hc.client5.http.protocol.HttpClientContext.create();
+        RequestConfig config = httpRequest.getConfig();
+        if (null != config) {
+            org.apache.hc.client5.http.config.RequestConfig.Builder builder = org.apache.hc.client5.http.config.RequestConfig.custom();
+            if (config.getConnectTimeout() > 0) {
+                builder.setConnectTimeout(config.getConnectTimeout(), TimeUnit.MILLISECONDS);
+            }
+            if (config.getConnectionRequestTimeout() > 0) {
+                builder.setConnectionRequestTimeout(config.getConnectionRequestTimeout(), TimeUnit.MILLISECONDS);
+            }
+            if (config.getSocketTimeout() > 0) {
+                builder.setResponseTimeout(config.getSocketTimeout(), TimeUnit.MILLISECONDS);
+            }
+            h2Context.setRequestConfig(builder.build());
+        }
+        return h2Context;
+
+    }
+
+    /**
+     * 转换为与 HTTP/1.1 传输层一致的异常类型, 以便 HttpRequestUtils 按原有方式分类
+     *
+     * @param cause 异常
+     * @return IO异常
+     */
+    private static IOException toIOException(Throwable cause) {
+
+        if (cause instanceof org.apache.hc.client5.http.ConnectTimeoutException) {
+            ConnectTimeoutException e = new ConnectTimeoutException(cause.getMessage());
+            e.initCause(cause);
+            return e;
+        }
+        if (cause instanceof IOException) {
+            return (IOException) cause;
+        }
+
+        return new IOException(cause);
+
+    }
+
+    /**
+     * 在线程池中把 4.x 请求体写入共享缓冲区, 传输线程按流量控制取走, 不缓冲整个请求体
+     */
+    private static class StreamingEntityProducer extends AbstractClassicEntityProducer {
+
+        private final HttpEntity entity;
+
+        StreamingEntityProducer(HttpEntity entity) {
+            super(BUFFER_SIZE, toContentType(entity), HttpExecutors.getExecutor());
+            this.entity = entity;
+        }
+
+        @Override
+        protected void produceData(org.apache.hc.core5.http.ContentType contentType, OutputStream outputStream) throws IOException {
+            entity.writeTo(outputStream);
+        }
+
+        @Override
+        public String getContentEncoding() {
+            Header contentEncoding = entity.getContentEncoding();
+            return null == contentEncoding ? null : contentEncoding.getValue();
+        }
+
+        private static org.apache.hc.core5.http.ContentType toContentType(HttpEntity entity) {
+            Header contentType = entity.getContentType();
+            return null == contentType ? null : org.apache.hc.core5.http.ContentType.parse(contentType.getValue());
+        }
+
+    }
+
+    /**
+     * 收到响应头后立即交给调用方, 响应体由传输线程写入共享缓冲区, 调用方从输入流中读取;
+     * 缓冲区满时不再扩大 HTTP/2 流量控制窗口, 服务端暂停发送
+     */
+    private static class StreamingResponseConsumer implements AsyncResponseConsumer<Void> {
+
+        /** 响应头 */
+        final CompletableFuture<Http2Response> head = new CompletableFuture<>();
+
+        /** 响应体缓冲区 */
+        final SharedInputBuffer buffer = new SharedInputBuffer(BUFFER_SIZE);
+
+        /** 请求的执行结果, 调用方提前关闭响应时用于取消 */
+        volatile Future<Void> exchange;
+
+        /** 响应体是否已接收完 */
+        volatile boolean complete = false;
+
+        /** 传输失败的原因 */
+        volatile Exception failure;
+
+        /** 响应体接收完时通知客户端 */
+        private volatile FutureCallback<Void> resultCallback;
+
+        @Override
+        public void consumeResponse(org.apache.hc.core5.http.HttpResponse h2Response, EntityDetails entityDetails, HttpContext context, FutureCallback<Void> resultCallback) {
+
+            this.resultCallback = resultCallback;
+            String reasonPhrase = h2Response.getReasonPhrase();
+            Http2Response response = new Http2Response(new BasicStatusLine(HTTP_2, h2Response.getCode(), null == reasonPhrase ? "" : reasonPhrase), this);
+            for (org.apache.hc.core5.http.Header header : h2Response.getHeaders()) {
+                response.addHeader(header.getName(), header.getValue());
+            }
+
+            if (null == entityDetails) {
+                complete = true;
+                head.complete(response);
+                resultCallback.completed(null);
+                return;
+            }
+
+            BasicHttpEntity entity = new BasicHttpEntity();
+            entity.setContent(new BodyInputStream(this));
+            entity.setContentLength(entityDetails.getContentLength());
+            entity.setContentType(response.getFirstHeader("Content-Type"));
+            Header contentEncoding = response.getFirstHeader("Content-Encoding");
+            if (null != contentEncoding && "gzip".equalsIgnoreCase(contentEncoding.getValue().trim())) {
+                response.setEntity(new GzipDecompressingEntity(entity));
+            } else if (null != contentEncoding && "deflate".equalsIgnoreCase(contentEncoding.getValue().trim())) {
+                response.setEntity(new DeflateDecompressingEntity(entity));
+            } else {
+                response.setEntity(entity);
+            }
+            head.complete(response);
+
+        }
+
+        @Override
+        public void informationResponse(org.apache.hc.core5.http.HttpResponse response, HttpContext context) {
+        }
+
+        @Override
+        public void updateCapacity(CapacityChannel capacityChannel) throws IOException {
+            buffer.updateCapacity(capacityChannel);
+        }
+
+        @Override
+        public void consume(ByteBuffer src) {
+            buffer.fill(src);
+        }
+
+        @Override
+        public void streamEnd(List<? extends org.apache.hc.core5.http.Header> trailers) {
+
+            complete = true;
+            buffer.markEndStream();
+            FutureCallback<Void> callback = resultCallback;
+            if (null != callback) {
+                callback.completed(null);
+            }
+
+        }
+
+        @Override
+        public void failed(Exception cause) {
+            fail(cause);
+        }
+
+        @Override
+        public void releaseResources() {
+            if (!complete) {
+                buffer.abort();
+            }
+        }
+
+        void fail(Exception cause) {
+
+            if (null == failure) {
+                failure = cause;
+            }
+            head.completeExceptionally(cause);
+            buffer.abort();
+
+        }
+
+    }
+
+    /**
+     * 响应体输入流, 传输中断时抛出异常, 不会把不完整的响应体当作正常结束
+     */
+    private static class BodyInputStream extends FilterInputStream {
+
+        private final StreamingResponseConsumer consumer;
+
+        BodyInputStream(StreamingResponseConsumer consumer) {
+            super(new ContentInputStream(consumer.buffer));
+            this.consumer = consumer;
+        }
+
+        @Override
+        public int read() throws IOException {
+            return checkEnd(super.read());
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            return checkEnd(super.read(b, off, len));
+        }
+
+        private int checkEnd(int n) throws IOException {
+
+            if (n < 0 && !consumer.complete) {
+                Exception failure = consumer.failure;
+                throw null == failure ? new InterruptedIOException("响应流被中断") : toIOException(failure);
+            }
+            return n;
+
+        }
+
+    }
+
+    /**
+     * HTTP/2 响应, 关闭时如果响应体还没有接收完则取消这个流, 不影响同一连接上的其它流
+     */
+    private static class Http2Response extends BasicHttpResponse implements CloseableHttpResponse {
+
+        private final StreamingResponseConsumer consumer;
+
+        Http2Response(BasicStatusLine statusLine, StreamingResponseConsumer consumer) {
+            super(statusLine);
+            this.consumer = consumer;
+        }
+
+        @Override
+        public void close() {
+
+            if (!consumer.complete) {
+                Future<Void> exchange = consumer.exchange;
+                if (null != exchange) {
+                    exchange.cancel(true);
+                }
+                consumer.buffer.abort();
+            }
+
+        }
+
+    }
+
+}
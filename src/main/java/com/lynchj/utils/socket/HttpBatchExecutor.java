@@ -0,0 +1,312 @@
+package com.lynchj.utils.socket;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import com.lynchj.enums.ErrorStatusEnum;
+import com.lynchj.exception.LynchjException;
+
+/**
+ * 批量Http请求执行器
+ * 	按路由(协议+主机+端口)限制并发数, 同一路由上所有批次共享连接池当前的每个路由最大连接数
+ * 	(包括 {@link HttpConnectionPoolManager#setMaxPerRoute} 手动设置和自适应调整后的值),
+ * 	保证并发的批量请求合计不会超过路由连接数而阻塞在连接池租借上, 结果按传入顺序返回, 每个请求单独记录异常,
+ * 	请求在 {@link HttpExecutors} 的执行器上运行, 开启虚拟线程模式后使用虚拟线程
+ *
+ * @author 大漠知秋
+ */
+public class HttpBatchExecutor {
+
+    public HttpBatchExecutor() {
+        throw new LynchjException(ErrorStatusEnum.CREATE_UTILS_ENTITY_ERROR);
+    }
+
+    /** 每个路由默认并发数, 与连接池每个路由最大连接数一致 */
+    public static final int DEFAULT_MAX_PER_ROUTE = HttpRequestUtils.DEFAULT_MAX_PER_ROUTE;
+
+    /** 单个请求最长等待时间与超时时间的倍数: 获取连接、建立连接、等待响应各一次超时, 再留一次重试的余量 */
+    private static final int AWAIT_TIMEOUT_FACTOR = 4;
+
+    /** 等待路由名额时重新读取连接池路由上限的间隔(毫秒), 上限调大后等待中的请求可以及时执行 */
+    private static final long GATE_RECHECK_MILLIS = 100;
+
+    /** 每个路由正在执行的批量请求数, 所有批次共享 */
+    private static final ConcurrentMap<String, RouteGate> ROUTE_GATES = new ConcurrentHashMap<>();
+
+    /**
+     * 批量执行请求, 每个路由并发数为默认值
+     *
+     * @param specs 请求描述集合
+     * @param timeOut 超时时间(毫秒):从连接池获取连接的时间,请求时间,响应时间
+     * @return 按传入顺序排列的执行结果
+     * @throws InterruptedException
+     */
+    public static List<HttpBatchResult> execute(Collection<HttpRequestSpec> specs, Integer timeOut) throws InterruptedException {
+        return execute(specs, timeOut, DEFAULT_MAX_PER_ROUTE);
+    }
+
+    /**
+     * 批量执行请求
+     * 	每个路由的工作任务数不超过 maxPerRoute 和连接池当前路由上限, 每个请求执行前还要在所有批次共享的路由名额上排队,
+     * 	名额数按执行时连接池的路由上限计算, 等待名额超过超时时间的请求记为 TimeoutException;
+     * 	设置了超时时间时最多等待 超时时间 * 4 * 单个工作任务依次执行的请求数, 超过后未完成的请求记为 TimeoutException;
+     * 	执行器拒绝任务时, 没有工作任务执行的请求记录拒绝异常
+     *
+     * @param specs 请求描述集合
+     * @param timeOut 超时时间(毫秒):从连接池获取连接的时间,请求时间,响应时间
+     * @param maxPerRoute 本批次每个路由最大并发数, 实际并发数还受连接池路由上限限制
+     * @return 按传入顺序排列的执行结果
+     * @throws InterruptedException
+     */
+    public static List<HttpBatchResult> execute(Collection<HttpRequestSpec> specs, Integer timeOut, int maxPerRoute) throws InterruptedException {
+
+        if (null == specs || maxPerRoute < 1) {
+            throw new LynchjException(ErrorStatusEnum.NULL_VALUE_ERROR);
+        }
+        if (specs.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        HttpRequestSpec[] specArr = specs.toArray(new HttpRequestSpec[specs.size()]);
+        HttpBatchResult[] results = new HttpBatchResult[specArr.length];
+
+        // 按路由分组, 每组内保持传入顺序
+        Map<String, Queue<Integer>> routeQueues = new LinkedHashMap<>();
+        for (int i = 0; i < specArr.length; i++) {
+            routeQueues.computeIfAbsent(routeKey(specArr[i]), key -> new ConcurrentLinkedQueue<>()).add(i);
+        }
+
+        // 每个路由启动不超过并发数和连接池当前路由上限的工作任务, 工作任务依次领取本路由的请求;
+        // 计数器按工作任务计数, 提交被拒绝或工作任务异常退出时也会减少, 不会一直等待
+        Map<String, Integer> routeWorkers = new LinkedHashMap<>();
+        int workerTotal = 0;
+        int rounds = 0;
+        for (Map.Entry<String, Queue<Integer>> entry : routeQueues.entrySet()) {
+            int size = entry.getValue().size();
+            int workerCount = Math.min(Math.min(maxPerRoute, routeLimit(entry.getKey(), maxPerRoute)), size);
+            routeWorkers.put(entry.getKey(), workerCount);
+            workerTotal += workerCount;
+            rounds = Math.max(rounds, (size + workerCount - 1) / workerCount);
+        }
+        CountDownLatch latch = new CountDownLatch(workerTotal);
+        Exception rejected = null;
+        for (Map.Entry<String, Queue<Integer>> entry : routeQueues.entrySet()) {
+            String route = entry.getKey();
+            Queue<Integer> queue = entry.getValue();
+            int workerCount = routeWorkers.get(route);
+            for (int i = 0; i < workerCount; i++) {
+                try {
+                    HttpExecutors.getExecutor().execute(() -> {
+                        try {
+                            Integer index;
+                            while ((index = queue.poll()) != null) {
+                                results[index] = executeGated(index, specArr[index], route, timeOut, maxPerRoute);
+                            }
+                        } finally {
+                            latch.countDown();
+                        }
+                    });
+                } catch (RejectedExecutionException e) {
+                    rejected = e;
+                    latch.countDown();
+                }
+            }
+        }
+
+        Exception cause;
+        if (await(latch, timeOut, rounds)) {
+            cause = null != rejected ? rejected : new IllegalStateException("工作任务异常退出, 请求未执行");
+        } else {
+            // 等待超时, 清空队列让仍在运行的工作任务结束, 未完成的请求记为超时
+            for (Queue<Integer> queue : routeQueues.values()) {
+                queue.clear();
+            }
+            cause = new TimeoutException("批量请求等待超时");
+        }
+
+        // 超时后仍在运行的请求可能继续写入, 返回副本
+        HttpBatchResult[] snapshot = results.clone();
+        for (int i = 0; i < snapshot.length; i++) {
+            if (null == snapshot[i]) {
+                snapshot[i] = new HttpBatchResult(i, specArr[i], HttpRequestUtils.RESULT, cause);
+            }
+        }
+        return Arrays.asList(snapshot);
+
+    }
+
+    /**
+     * 等待所有工作任务结束, 超时时间未设置时一直等待
+     *
+     * @param latch 工作任务计数器
+     * @param timeOut 超时时间(毫秒)
+     * @param rounds 单个工作任务最多依次执行的请求数
+     * @return true: 所有工作任务已结束; false: 等待超时
+     * @throws InterruptedException
+     */
+    private static boolean await(CountDownLatch latch, Integer timeOut, int rounds) throws InterruptedException {
+
+        if (null == timeOut || timeOut <= 0) {
+            latch.await();
+            return true;
+        }
+        return latch.await((long) timeOut * AWAIT_TIMEOUT_FACTOR * rounds, TimeUnit.MILLISECONDS);
+
+    }
+
+    /**
+     * 占用路由名额后执行单个请求, 等待名额超时或被中断时不执行, 异常记录到结果中
+     *
+     * @param index 下标
+     * @param spec 请求描述
+     * @param route 路由标识
+     * @param timeOut 超时时间(毫秒), 同时作为等待名额的最长时间
+     * @param fallbackLimit 无法读取连接池路由上限时使用的名额数
+     * @return 执行结果
+     */
+    private static HttpBatchResult executeGated(int index, HttpRequestSpec spec, String route, Integer timeOut, int fallbackLimit) {
+
+        if (route.isEmpty()) {
+            return executeOne(index, spec, timeOut);
+        }
+
+        RouteGate gate = ROUTE_GATES.computeIfAbsent(route, key -> new RouteGate());
+        try {
+            if (!gate.acquire(route, timeOut, fallbackLimit)) {
+                return new HttpBatchResult(index, spec, HttpRequestUtils.RESULT, new TimeoutException("等待路由并发名额超时"));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return new HttpBatchResult(index, spec, HttpRequestUtils.RESULT, e);
+        }
+        try {
+            return executeOne(index, spec, timeOut);
+        } finally {
+            gate.release();
+        }
+
+    }
+
+    /**
+     * 读取连接池当前的路由上限
+     *
+     * @param route 路由标识
+     * @param fallback 连接池不可用或地址无法解析时使用的值
+     * @return 路由上限, 至少为 1
+     */
+    private static int routeLimit(String route, int fallback) {
+
+        try {
+            return Math.max(1, HttpConnectionPoolManager.getMaxPerRoute(route));
+        } catch (Exception e) {
+            return fallback;
+        }
+
+    }
+
+    /**
+     * 执行单个请求, 异常记录到结果中
+     *
+     * @param index 下标
+     * @param spec 请求描述
+     * @param timeOut 超时时间(毫秒)
+     * @return 执行结果
+     */
+    private static HttpBatchResult executeOne(int index, HttpRequestSpec spec, Integer timeOut) {
+
+        try {
+            String result = HttpRequestUtils.executeRequest(spec.toHttpRequest(), timeOut, false, null);
+            return new HttpBatchResult(index, spec, result, null);
+        } catch (Exception e) {
+            return new HttpBatchResult(index, spec, HttpRequestUtils.RESULT, e);
+        }
+
+    }
+
+    /**
+     * 计算请求所属路由
+     *
+     * @param spec 请求描述
+     * @return 路由标识: 协议://主机:端口, 无法解析时为原始地址
+     */
+    private static String routeKey(HttpRequestSpec spec) {
+
+        if (null == spec || null == spec.getUrl()) {
+            return "";
+        }
+        try {
+            URI uri = new URI(spec.getUrl());
+            String scheme = null == uri.getScheme() ? "http" : uri.getScheme().toLowerCase();
+            int port = uri.getPort();
+            if (port < 0) {
+                port = "https".equals(scheme) ? 443 : 80;
+            }
+            String host = null == uri.getHost() ? null : uri.getHost().toLowerCase();
+            return scheme + "://" + host + ":" + port;
+        } catch (Exception e) {
+            return spec.getUrl();
+        }
+
+    }
+
+    /**
+     * 路由名额, 名额数在每次检查时按连接池当前的路由上限计算
+     */
+    private static class RouteGate {
+
+        /** 正在执行的请求数 */
+        private int active;
+
+        /**
+         * 占用一个名额, 名额用完时等待
+         *
+         * @param route 路由标识
+         * @param timeOut 最长等待时间(毫秒), 未设置时一直等待
+         * @param fallbackLimit 无法读取连接池路由上限时使用的名额数
+         * @return true: 已占用; false: 等待超时
+         * @throws InterruptedException
+         */
+        synchronized boolean acquire(String route, Integer timeOut, int fallbackLimit) throws InterruptedException {
+
+            boolean timed = null != timeOut && timeOut > 0;
+            long deadline = timed ? System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeOut) : 0;
+            while (active >= routeLimit(route, fallbackLimit)) {
+                long waitMillis = GATE_RECHECK_MILLIS;
+                if (timed) {
+                    long remaining = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+                    if (remaining <= 0) {
+                        return false;
+                    }
+                    waitMillis = Math.min(waitMillis, remaining);
+                }
+                wait(waitMillis);
+            }
+            active++;
+            return true;
+
+        }
+
+        /**
+         * 归还一个名额
+         */
+        synchronized void release() {
+            active--;
+            notifyAll();
+        }
+
+    }
+
+}
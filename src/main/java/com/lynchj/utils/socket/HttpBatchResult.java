@@ -0,0 +1,59 @@
+package com.lynchj.utils.socket;
+
+/**
+ * 批量请求中单个请求的执行结果
+ *
+ * @author 大漠知秋
+ */
+public class HttpBatchResult {
+
+    /** 在批量请求中的下标 */
+    private final int index;
+
+    /** 请求描述 */
+    private final HttpRequestSpec spec;
+
+    /** 响应信息 */
+    private final String result;
+
+    /** 执行出错时的异常 */
+    private final Throwable exception;
+
+    HttpBatchResult(int index, HttpRequestSpec spec, String result, Throwable exception) {
+        this.index = index;
+        this.spec = spec;
+        this.result = result;
+        this.exception = exception;
+    }
+
+    /**
+     * 是否成功: 没有异常且响应不是出错结果"-1"
+     *
+     * @return true: 成功
+     */
+    public boolean isSuccess() {
+        return null == exception && !HttpRequestUtils.RESULT.equals(result);
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public HttpRequestSpec getSpec() {
+        return spec;
+    }
+
+    public String getResult() {
+        return result;
+    }
+
+    public Throwable getException() {
+        return exception;
+    }
+
+    @Override
+    public String toString() {
+        return "HttpBatchResult [index=" + index + ", result=" + result + ", exception=" + exception + "]";
+    }
+
+}
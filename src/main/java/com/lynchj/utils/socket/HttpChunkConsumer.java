@@ -0,0 +1,22 @@
+package com.lynchj.utils.socket;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * 响应数据块消费者
+ *
+ * @author 大漠知秋
+ */
+@FunctionalInterface
+public interface HttpChunkConsumer {
+
+    /**
+     * 消费一个数据块, 回调返回后缓冲区会被复用, 需要保留的数据要自行复制
+     *
+     * @param chunk 只读的数据块, position 到 limit 之间为有效数据
+     * @throws IOException
+     */
+    void accept(ByteBuffer chunk) throws IOException;
+
+}
@@ -0,0 +1,248 @@
+package com.lynchj.utils.socket;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 单个主机的熔断器
+ * 	关闭: 按最近若干次调用的失败率和慢调用率判断, 达到阈值后打开;
+ * 	打开: 直接拒绝请求, 经过等待时间后进入半开;
+ * 	半开: 放行少量试探请求, 试探结果低于阈值时关闭, 否则重新打开;
+ * 	每次切换状态时代数加一, 调用结果只计入放行时所在的代, 之前状态放行、之后才结束的调用不影响当前判断
+ *
+ * @author 大漠知秋
+ */
+public class HttpCircuitBreaker {
+
+    /**
+     * 熔断器状态
+     */
+    public enum State {
+
+        /** 关闭, 正常放行 */
+        CLOSED,
+
+        /** 打开, 拒绝请求 */
+        OPEN,
+
+        /** 半开, 放行少量试探请求 */
+        HALF_OPEN
+
+    }
+
+    /** 结果: 成功 */
+    private static final byte SUCCESS = 0;
+
+    /** 结果: 失败 */
+    private static final byte FAILURE = 1;
+
+    /** 结果: 慢调用 */
+    private static final byte SLOW = 2;
+
+    /** 熔断参数 */
+    private final HttpTrafficControl.BreakerConfig config;
+
+    /** 最近调用结果的环形窗口 */
+    private final byte[] window;
+
+    /** 窗口中下一个写入位置 */
+    private int position;
+
+    /** 窗口中的调用数 */
+    private int calls;
+
+    /** 窗口中的失败数 */
+    private int failures;
+
+    /** 窗口中的慢调用数 */
+    private int slowCalls;
+
+    /** 当前状态 */
+    private volatile State state = State.CLOSED;
+
+    /** 打开时间(纳秒) */
+    private long openedAtNanos;
+
+    /** 半开时已放行的试探请求数 */
+    private int halfOpenPermitted;
+
+    /** 当前代数, 每次切换状态时加一 */
+    private long generation;
+
+    HttpCircuitBreaker(HttpTrafficControl.BreakerConfig config) {
+        this.config = config;
+        this.window = new byte[config.windowSize];
+    }
+
+    /**
+     * 是否放行请求, 打开状态超过等待时间后转为半开
+     *
+     * @return 放行凭证, 调用结束后用它记录结果; 拒绝时为null
+     */
+    synchronized Permit tryAcquire() {
+
+        switch (state) {
+            case OPEN:
+                if (System.nanoTime() - openedAtNanos < TimeUnit.MILLISECONDS.toNanos(config.openMillis)) {
+                    return null;
+                }
+                transitionTo(State.HALF_OPEN);
+                halfOpenPermitted = 1;
+                return new Permit(this, generation);
+            case HALF_OPEN:
+                if (halfOpenPermitted >= config.halfOpenCalls) {
+                    return null;
+                }
+                halfOpenPermitted++;
+                return new Permit(this, generation);
+            default:
+                return new Permit(this, generation);
+        }
+
+    }
+
+    /**
+     * 记录一次调用结果, 放行后熔断器已切换过状态时忽略
+     *
+     * @param permitGeneration 放行时的代数
+     * @param failed 是否失败
+     * @param nanos 耗时(纳秒)
+     */
+    private synchronized void record(long permitGeneration, boolean failed, long nanos) {
+
+        if (permitGeneration != generation || State.OPEN == state) {
+            return;
+        }
+        byte outcome = failed ? FAILURE : (config.slowCallNanos > 0 && nanos >= config.slowCallNanos ? SLOW : SUCCESS);
+        add(outcome);
+
+        if (State.HALF_OPEN == state) {
+            if (calls >= config.halfOpenCalls) {
+                transitionTo(isOverThreshold() ? State.OPEN : State.CLOSED);
+            }
+        } else if (calls >= config.minimumCalls && isOverThreshold()) {
+            transitionTo(State.OPEN);
+        }
+
+    }
+
+    /**
+     * 重置为关闭状态
+     */
+    synchronized void reset() {
+        transitionTo(State.CLOSED);
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    /**
+     * 当前窗口的失败率
+     *
+     * @return 0 ~ 1
+     */
+    public synchronized double getFailureRate() {
+        return calls == 0 ? 0 : (double) failures / calls;
+    }
+
+    /**
+     * 当前窗口的慢调用率
+     *
+     * @return 0 ~ 1
+     */
+    public synchronized double getSlowCallRate() {
+        return calls == 0 ? 0 : (double) slowCalls / calls;
+    }
+
+    /**
+     * 当前窗口中的调用数
+     *
+     * @return 调用数
+     */
+    public synchronized int getBufferedCalls() {
+        return calls;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "HttpCircuitBreaker [state=" + state + ", calls=" + calls + ", failureRate=" + getFailureRate()
+                + ", slowCallRate=" + getSlowCallRate() + "]";
+    }
+
+    private boolean isOverThreshold() {
+        return getFailureRate() >= config.failureRateThreshold
+                || (config.slowCallNanos > 0 && getSlowCallRate() >= config.slowCallRateThreshold);
+    }
+
+    private void add(byte outcome) {
+
+        if (calls == window.length) {
+            // 窗口已满, 移出最早的结果
+            byte oldest = window[position];
+            if (FAILURE == oldest) {
+                failures--;
+            } else if (SLOW == oldest) {
+                slowCalls--;
+            }
+        } else {
+            calls++;
+        }
+        window[position] = outcome;
+        position = (position + 1) % window.length;
+        if (FAILURE == outcome) {
+            failures++;
+        } else if (SLOW == outcome) {
+            slowCalls++;
+        }
+
+    }
+
+    /**
+     * 切换状态并清空窗口, 每个状态只按自己期间的调用判断
+     *
+     * @param next 新状态
+     */
+    private void transitionTo(State next) {
+
+        state = next;
+        generation++;
+        position = 0;
+        calls = 0;
+        failures = 0;
+        slowCalls = 0;
+        halfOpenPermitted = 0;
+        if (State.OPEN == next) {
+            openedAtNanos = System.nanoTime();
+        }
+
+    }
+
+    /**
+     * 放行凭证, 记录放行时熔断器的代数
+     */
+    static final class Permit {
+
+        /** 所属熔断器 */
+        private final HttpCircuitBreaker breaker;
+
+        /** 放行时的代数 */
+        private final long generation;
+
+        private Permit(HttpCircuitBreaker breaker, long generation) {
+            this.breaker = breaker;
+            this.generation = generation;
+        }
+
+        /**
+         * 记录本次调用结果
+         *
+         * @param failed 是否失败
+         * @param nanos 耗时(纳秒)
+         */
+        void record(boolean failed, long nanos) {
+            breaker.record(generation, failed, nanos);
+        }
+
+    }
+
+}
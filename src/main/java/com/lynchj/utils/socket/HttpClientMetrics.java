@@ -0,0 +1,321 @@
+package com.lynchj.utils.socket;
+
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.StandardMBean;
+
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.pool.PoolStats;
+
+import com.lynchj.enums.ErrorStatusEnum;
+import com.lynchj.exception.LynchjException;
+
+/**
+ * Http客户端监控指标
+ * 	包含连接池状态、各阶段耗时(租借连接、建立连接、等待响应)、重试次数和响应状态码统计,
+ * 	计数全部使用无锁累加器, 可以直接调用查询, 也可以注册为JMX MBean
+ *
+ * @author 大漠知秋
+ */
+public class HttpClientMetrics {
+
+    public HttpClientMetrics() {
+        throw new LynchjException(ErrorStatusEnum.CREATE_UTILS_ENTITY_ERROR);
+    }
+
+    /** JMX 对象名称 */
+    public static final String OBJECT_NAME = "com.lynchj:type=HttpClientMetrics";
+
+    /** 请求总数 */
+    private static final LongAdder REQUEST_COUNT = new LongAdder();
+
+    /** 请求失败数 */
+    private static final LongAdder FAILURE_COUNT = new LongAdder();
+
+    /** 重试次数 */
+    private static final LongAdder RETRY_COUNT = new LongAdder();
+
+    /** 从连接池获取连接超时次数 */
+    private static final LongAdder POOL_TIMEOUT_COUNT = new LongAdder();
+
+    /** 各响应状态码的次数 */
+    private static final ConcurrentMap<Integer, LongAdder> STATUS_CODE_COUNTS = new ConcurrentHashMap<>();
+
+    /** 从连接池获取连接耗时 */
+    private static final LatencyHistogram LEASE_LATENCY = new LatencyHistogram();
+
+    /** 建立连接耗时 */
+    private static final LatencyHistogram CONNECT_LATENCY = new LatencyHistogram();
+
+    /** 发送请求到收到响应头的耗时 */
+    private static final LatencyHistogram RESPONSE_LATENCY = new LatencyHistogram();
+
+    /** 请求总耗时 */
+    private static final LatencyHistogram REQUEST_LATENCY = new LatencyHistogram();
+
+    static void recordRequest(long nanos) {
+        REQUEST_COUNT.increment();
+        REQUEST_LATENCY.record(nanos);
+    }
+
+    static void recordFailure() {
+        FAILURE_COUNT.increment();
+    }
+
+    static void recordRetry() {
+        RETRY_COUNT.increment();
+    }
+
+    static void recordPoolTimeout() {
+        POOL_TIMEOUT_COUNT.increment();
+    }
+
+    static void recordStatusCode(int statusCode) {
+
+        LongAdder adder = STATUS_CODE_COUNTS.get(statusCode);
+        if (null == adder) {
+            adder = STATUS_CODE_COUNTS.computeIfAbsent(statusCode, key -> new LongAdder());
+        }
+        adder.increment();
+
+    }
+
+    static void recordLease(long nanos) {
+        LEASE_LATENCY.record(nanos);
+    }
+
+    static void recordConnect(long nanos) {
+        CONNECT_LATENCY.record(nanos);
+    }
+
+    static void recordResponse(long nanos) {
+        RESPONSE_LATENCY.record(nanos);
+    }
+
+    /**
+     * 连接池总体状态
+     *
+     * @return 连接池状态, 连接池未初始化时为null
+     */
+    public static PoolStats getTotalStats() {
+
+        PoolingHttpClientConnectionManager connManager = HttpRequestUtils.getConnectionManagerIfInitialized();
+        return null == connManager ? null : connManager.getTotalStats();
+
+    }
+
+    /**
+     * 各路由的连接池状态
+     *
+     * @return 路由 -> 连接池状态
+     */
+    public static Map<HttpRoute, PoolStats> getRouteStats() {
+
+        Map<HttpRoute, PoolStats> routeStats = new TreeMap<>((a, b) -> a.toString().compareTo(b.toString()));
+        PoolingHttpClientConnectionManager connManager = HttpRequestUtils.getConnectionManagerIfInitialized();
+        if (null != connManager) {
+            for (HttpRoute route : connManager.getRoutes()) {
+                routeStats.put(route, connManager.getStats(route));
+            }
+        }
+
+        return routeStats;
+
+    }
+
+    public static long getRequestCount() {
+        return REQUEST_COUNT.sum();
+    }
+
+    public static long getFailureCount() {
+        return FAILURE_COUNT.sum();
+    }
+
+    public static long getRetryCount() {
+        return RETRY_COUNT.sum();
+    }
+
+    public static long getPoolTimeoutCount() {
+        return POOL_TIMEOUT_COUNT.sum();
+    }
+
+    /**
+     * 各响应状态码的次数
+     *
+     * @return 状态码 -> 次数
+     */
+    public static Map<Integer, Long> getStatusCodeCounts() {
+
+        Map<Integer, Long> counts = new TreeMap<>();
+        for (Map.Entry<Integer, LongAdder> entry : STATUS_CODE_COUNTS.entrySet()) {
+            counts.put(entry.getKey(), entry.getValue().sum());
+        }
+
+        return counts;
+
+    }
+
+    public static LatencyHistogram getLeaseLatency() {
+        return LEASE_LATENCY;
+    }
+
+    public static LatencyHistogram getConnectLatency() {
+        return CONNECT_LATENCY;
+    }
+
+    public static LatencyHistogram getResponseLatency() {
+        return RESPONSE_LATENCY;
+    }
+
+    public static LatencyHistogram getRequestLatency() {
+        return REQUEST_LATENCY;
+    }
+
+    /**
+     * 清空计数和耗时记录, 连接池状态不受影响
+     */
+    public static void reset() {
+
+        REQUEST_COUNT.reset();
+        FAILURE_COUNT.reset();
+        RETRY_COUNT.reset();
+        POOL_TIMEOUT_COUNT.reset();
+        STATUS_CODE_COUNTS.clear();
+        LEASE_LATENCY.reset();
+        CONNECT_LATENCY.reset();
+        RESPONSE_LATENCY.reset();
+        REQUEST_LATENCY.reset();
+
+    }
+
+    /**
+     * 注册到平台 MBeanServer, 重复注册不做任何操作
+     */
+    public static synchronized void registerMBean() {
+
+        try {
+            MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+            ObjectName objectName = new ObjectName(OBJECT_NAME);
+            if (!mBeanServer.isRegistered(objectName)) {
+                mBeanServer.registerMBean(new StandardMBean(new MetricsView(), HttpClientMetricsMBean.class), objectName);
+            }
+        } catch (Exception e) {
+            System.err.println("注册Http客户端监控MBean出错");
+            e.printStackTrace();
+        }
+
+    }
+
+    /**
+     * 从平台 MBeanServer 注销
+     */
+    public static synchronized void unregisterMBean() {
+
+        try {
+            MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+            ObjectName objectName = new ObjectName(OBJECT_NAME);
+            if (mBeanServer.isRegistered(objectName)) {
+                mBeanServer.unregisterMBean(objectName);
+            }
+        } catch (Exception e) {
+            System.err.println("注销Http客户端监控MBean出错");
+            e.printStackTrace();
+        }
+
+    }
+
+    /**
+     * JMX 视图
+     */
+    private static class MetricsView implements HttpClientMetricsMBean {
+
+        @Override
+        public int getLeasedConnections() {
+            PoolStats stats = getTotalStats();
+            return null == stats ? 0 : stats.getLeased();
+        }
+
+        @Override
+        public int getPendingConnections() {
+            PoolStats stats = getTotalStats();
+            return null == stats ? 0 : stats.getPending();
+        }
+
+        @Override
+        public int getAvailableConnections() {
+            PoolStats stats = getTotalStats();
+            return null == stats ? 0 : stats.getAvailable();
+        }
+
+        @Override
+        public int getMaxConnections() {
+            PoolStats stats = getTotalStats();
+            return null == stats ? 0 : stats.getMax();
+        }
+
+        @Override
+        public String getRouteStats() {
+            return HttpClientMetrics.getRouteStats().toString();
+        }
+
+        @Override
+        public long getRequestCount() {
+            return HttpClientMetrics.getRequestCount();
+        }
+
+        @Override
+        public long getFailureCount() {
+            return HttpClientMetrics.getFailureCount();
+        }
+
+        @Override
+        public long getRetryCount() {
+            return HttpClientMetrics.getRetryCount();
+        }
+
+        @Override
+        public long getPoolTimeoutCount() {
+            return HttpClientMetrics.getPoolTimeoutCount();
+        }
+
+        @Override
+        public String getStatusCodeCounts() {
+            return HttpClientMetrics.getStatusCodeCounts().toString();
+        }
+
+        @Override
+        public String getLeaseLatency() {
+            return LEASE_LATENCY.toString();
+        }
+
+        @Override
+        public String getConnectLatency() {
+            return CONNECT_LATENCY.toString();
+        }
+
+        @Override
+        public String getResponseLatency() {
+            return RESPONSE_LATENCY.toString();
+        }
+
+        @Override
+        public String getRequestLatency() {
+            return REQUEST_LATENCY.toString();
+        }
+
+        @Override
+        public void reset() {
+            HttpClientMetrics.reset();
+        }
+
+    }
+
+}
@@ -0,0 +1,55 @@
+package com.lynchj.utils.socket;
+
+/**
+ * Http客户端监控指标的JMX接口
+ *
+ * @author 大漠知秋
+ */
+public interface HttpClientMetricsMBean {
+
+    /** 连接池中已租出的连接数 */
+    int getLeasedConnections();
+
+    /** 连接池中等待租借的请求数 */
+    int getPendingConnections();
+
+    /** 连接池中空闲的连接数 */
+    int getAvailableConnections();
+
+    /** 连接池最大连接数 */
+    int getMaxConnections();
+
+    /** 各路由的连接池状态 */
+    String getRouteStats();
+
+    /** 请求总数 */
+    long getRequestCount();
+
+    /** 请求失败数 */
+    long getFailureCount();
+
+    /** 重试次数 */
+    long getRetryCount();
+
+    /** 从连接池获取连接超时次数 */
+    long getPoolTimeoutCount();
+
+    /** 各响应状态码的次数 */
+    String getStatusCodeCounts();
+
+    /** 从连接池获取连接耗时 */
+    String getLeaseLatency();
+
+    /** 建立连接耗时 */
+    String getConnectLatency();
+
+    /** 发送请求到收到响应头的耗时 */
+    String getResponseLatency();
+
+    /** 请求总耗时 */
+    String getRequestLatency();
+
+    /** 清空计数和耗时记录 */
+    void reset();
+
+}
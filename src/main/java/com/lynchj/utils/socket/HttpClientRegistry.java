@@ -0,0 +1,368 @@
+package com.lynchj.utils.socket;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.UnknownHostException;
+import java.util.Date;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import javax.net.ssl.SSLException;
+import javax.net.ssl.SSLHandshakeException;
+
+import org.apache.http.Header;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpEntityEnclosingRequest;
+import org.apache.http.HttpRequest;
+import org.apache.http.HttpRequestInterceptor;
+import org.apache.http.HttpResponse;
+import org.apache.http.NoHttpResponseException;
+import org.apache.http.client.HttpRequestRetryHandler;
+import org.apache.http.client.ServiceUnavailableRetryStrategy;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.protocol.HttpClientContext;
+import org.apache.http.client.protocol.ResponseProcessCookies;
+import org.apache.http.client.utils.DateUtils;
+import org.apache.http.conn.ConnectTimeoutException;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.protocol.HttpContext;
+
+import com.lynchj.enums.ErrorStatusEnum;
+import com.lynchj.exception.LynchjException;
+
+/**
+ * HttpClient客户端注册表
+ * 	按重试策略缓存不可变的客户端对象, 所有线程共享同一个连接池,
+ * 	超时时间通过每个请求自身的 RequestConfig 设置
+ *
+ * @author 大漠知秋
+ */
+public class HttpClientRegistry {
+
+    public HttpClientRegistry() {
+        throw new LynchjException(ErrorStatusEnum.CREATE_UTILS_ENTITY_ERROR);
+    }
+
+    /** 默认重试次数 */
+    public static final int DEFAULT_RETRY_COUNT = HttpRetryPolicy.DEFAULT_MAX_ATTEMPTS;
+
+    /** 按重试策略缓存的客户端 */
+    private static final ConcurrentMap<HttpRetryPolicy, CloseableHttpClient> CLIENTS = new ConcurrentHashMap<>();
+
+    /** 默认重试策略 */
+    private static volatile HttpRetryPolicy defaultRetryPolicy = HttpRetryPolicy.DEFAULT;
+
+    /** 按超时时间缓存的请求配置 */
+    private static final ConcurrentMap<Integer, RequestConfig> REQUEST_CONFIGS = new ConcurrentHashMap<>();
+
+    /** 是否已关闭 */
+    private static volatile boolean shutdown = false;
+
+    /**
+     * 设置默认重试策略, 之后通过 {@link #getHttpClient()} 发起的请求使用新策略
+     *
+     * @param retryPolicy 重试策略
+     */
+    public static void setDefaultRetryPolicy(HttpRetryPolicy retryPolicy) {
+
+        if (null == retryPolicy) {
+            throw new LynchjException(ErrorStatusEnum.NULL_VALUE_ERROR);
+        }
+        defaultRetryPolicy = retryPolicy;
+
+    }
+
+    public static HttpRetryPolicy getDefaultRetryPolicy() {
+        return defaultRetryPolicy;
+    }
+
+    /**
+     * 获取默认重试策略的客户端
+     *
+     * @return 客户端连接对象
+     */
+    public static CloseableHttpClient getHttpClient() {
+        return getHttpClient(defaultRetryPolicy);
+    }
+
+    /**
+     * 获取指定重试次数的客户端, 使用默认的退避间隔
+     *
+     * @param retryCount 最大执行次数(含第一次)
+     * @return 客户端连接对象
+     */
+    public static CloseableHttpClient getHttpClient(int retryCount) {
+        return getHttpClient(new HttpRetryPolicy(retryCount, HttpRetryPolicy.DEFAULT_BASE_DELAY_MILLIS,
+                HttpRetryPolicy.DEFAULT_MAX_DELAY_MILLIS, 503));
+    }
+
+    /**
+     * 获取指定重试策略的客户端, 同一策略只会构建一次
+     *
+     * @param retryPolicy 重试策略
+     * @return 客户端连接对象
+     */
+    public static CloseableHttpClient getHttpClient(HttpRetryPolicy retryPolicy) {
+
+        if (shutdown) {
+            throw new LynchjException(ErrorStatusEnum.HTTP_CLIENT_SHUTDOWN_ERROR);
+        }
+        if (null == retryPolicy) {
+            throw new LynchjException(ErrorStatusEnum.NULL_VALUE_ERROR);
+        }
+
+        CloseableHttpClient httpClient = CLIENTS.get(retryPolicy);
+        if (null == httpClient) {
+            httpClient = CLIENTS.computeIfAbsent(retryPolicy, HttpClientRegistry::buildHttpClient);
+        }
+
+        return httpClient;
+
+    }
+
+    /**
+     * 获取超时时间对应的请求配置
+     *
+     * @param timeOut 超时时间(毫秒):从连接池获取连接的时间,请求时间,响应时间, null 为不限制
+     * @return 请求配置
+     */
+    public static RequestConfig getRequestConfig(Integer timeOut) {
+
+        int timeOutValue = null == timeOut ? -1 : timeOut;
+        RequestConfig requestConfig = REQUEST_CONFIGS.get(timeOutValue);
+        if (null == requestConfig) {
+            requestConfig = REQUEST_CONFIGS.computeIfAbsent(timeOutValue, value -> RequestConfig.custom()
+                    .setConnectionRequestTimeout(value)
+                    .setConnectTimeout(value)
+                    .setSocketTimeout(value)
+                    .build());
+        }
+
+        return requestConfig;
+
+    }
+
+    /**
+     * 关闭所有客户端和连接池, 关闭后不能再获取客户端
+     */
+    public static synchronized void shutdown() {
+
+        if (shutdown) {
+            return;
+        }
+        shutdown = true;
+
+        for (CloseableHttpClient httpClient : CLIENTS.values()) {
+            try {
+                httpClient.close();
+            } catch (IOException e) {
+                System.err.println("关闭客户端出错");
+                e.printStackTrace();
+            }
+        }
+        CLIENTS.clear();
+
+        HttpConnectionPoolManager.stopEvictor();
+        HttpConnectionPoolManager.disableAdaptiveRouteLimits();
+        PoolingHttpClientConnectionManager connManager = HttpRequestUtils.getConnectionManagerIfInitialized();
+        if (null != connManager) {
+            connManager.shutdown();
+        }
+
+    }
+
+    /**
+     * 是否已关闭
+     *
+     * @return true: 已关闭
+     */
+    public static boolean isShutdown() {
+        return shutdown;
+    }
+
+    /**
+     * 构建客户端, 连接池由注册表统一管理, 客户端关闭时不关闭连接池
+     *
+     * @param retryPolicy 重试策略
+     * @return 客户端连接对象
+     */
+    private static CloseableHttpClient buildHttpClient(HttpRetryPolicy retryPolicy) {
+
+        return HttpClients.custom()
+                .setConnectionManager(HttpRequestUtils.getConnectionManager())
+                .setConnectionManagerShared(true)
+                .setDefaultRequestConfig(getRequestConfig(null))
+                .setKeepAliveStrategy(HttpConnectionPoolManager.getKeepAliveStrategy())
+                .addInterceptorFirst((HttpRequestInterceptor) (request, context) -> HttpRetryBudget.recordAttempt())
+                // ConcurrentCookieStore 按目标主机取Cookie
+                .disableCookieManagement()
+                .addInterceptorLast(new RequestAddHostCookies())
+                .addInterceptorLast(new ResponseProcessCookies())
+                .setRetryHandler(new RetryHandler(retryPolicy))
+                .setServiceUnavailableRetryStrategy(new StatusRetryStrategy(retryPolicy))
+                .setRequestExecutor(new InstrumentedRequestExecutor())
+                .build();
+
+    }
+
+    /**
+     * 等待退避时间, 被中断时放弃重试
+     *
+     * @param millis 等待时间(毫秒)
+     * @return true: 等待完成
+     */
+    private static boolean backoff(long millis) {
+
+        if (millis <= 0) {
+            return true;
+        }
+        try {
+            Thread.sleep(millis);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+
+    }
+
+    /**
+     * 超时回调机制, IO异常按重试策略退避后重试
+     */
+    private static class RetryHandler implements HttpRequestRetryHandler {
+
+        /** 重试策略 */
+        private final HttpRetryPolicy retryPolicy;
+
+        RetryHandler(HttpRetryPolicy retryPolicy) {
+            this.retryPolicy = retryPolicy;
+        }
+
+        @Override
+        public boolean retryRequest(IOException exception, int executionCount, HttpContext context) {
+            if (!shouldRetry(exception, executionCount, context) || !HttpRetryBudget.tryAcquire()) {
+                return false;
+            }
+            if (!backoff(retryPolicy.backoffMillis(executionCount))) {
+                return false;
+            }
+            HttpClientMetrics.recordRetry();
+            return true;
+        }
+
+        private boolean shouldRetry(IOException exception, int executionCount, HttpContext context) {
+            if (executionCount >= retryPolicy.getMaxAttempts()) {// 如果已经重试了指定次数，就放弃
+                return false;
+            }
+            if (exception instanceof NoHttpResponseException) {// 如果服务器丢掉了连接，那么就重试
+                return true;
+            }
+            if (exception instanceof SSLHandshakeException) {// 不要重试SSL握手异常
+                return false;
+            }
+            if (exception instanceof InterruptedIOException) {// 超时
+                return true;
+            }
+            if (exception instanceof UnknownHostException) {// 目标服务器不可达
+                return false;
+            }
+            if (exception instanceof ConnectTimeoutException) {// 连接被拒绝
+                return false;
+            }
+            if (exception instanceof SSLException) {// ssl握手异常
+                return false;
+            }
+            HttpClientContext clientContext = HttpClientContext.adapt(context);
+            HttpRequest request = clientContext.getRequest();
+            // 如果请求是幂等的，就再次尝试
+            if (!(request instanceof HttpEntityEnclosingRequest)) {
+                return true;
+            }
+            return false;
+        }
+
+    }
+
+    /**
+     * 按响应码重试, 优先按 Retry-After 等待, 超过最大退避间隔时不再重试
+     * 	重试间隔在 retryRequest 中算出, 由同一线程随后调用 getRetryInterval 取走, 等待前响应已关闭
+     */
+    private static class StatusRetryStrategy implements ServiceUnavailableRetryStrategy {
+
+        /** 重试策略 */
+        private final HttpRetryPolicy retryPolicy;
+
+        /** 本线程下一次重试的等待时间 */
+        private final ThreadLocal<Long> retryInterval = new ThreadLocal<>();
+
+        StatusRetryStrategy(HttpRetryPolicy retryPolicy) {
+            this.retryPolicy = retryPolicy;
+        }
+
+        @Override
+        public boolean retryRequest(HttpResponse response, int executionCount, HttpContext context) {
+
+            if (executionCount >= retryPolicy.getMaxAttempts() || !retryPolicy.isRetryStatus(response.getStatusLine().getStatusCode())) {
+                return false;
+            }
+            // 请求体不能重复发送时不重试
+            HttpRequest request = HttpClientContext.adapt(context).getRequest();
+            if (request instanceof HttpEntityEnclosingRequest) {
+                HttpEntity entity = ((HttpEntityEnclosingRequest) request).getEntity();
+                if (null != entity && !entity.isRepeatable()) {
+                    return false;
+                }
+            }
+
+            long interval = retryAfterMillis(response);
+            if (interval < 0) {
+                interval = retryPolicy.backoffMillis(executionCount);
+            } else if (interval > retryPolicy.getMaxDelayMillis()) {
+                return false;
+            }
+            if (!HttpRetryBudget.tryAcquire()) {
+                return false;
+            }
+
+            retryInterval.set(interval);
+            HttpClientMetrics.recordRetry();
+            return true;
+
+        }
+
+        @Override
+        public long getRetryInterval() {
+
+            Long interval = retryInterval.get();
+            retryInterval.remove();
+            return null == interval ? 0 : interval;
+
+        }
+
+        /**
+         * 解析 Retry-After, 支持秒数和 HTTP 日期两种格式
+         *
+         * @param response 响应
+         * @return 等待时间(毫秒), 没有或无法解析时为-1
+         */
+        private static long retryAfterMillis(HttpResponse response) {
+
+            Header header = response.getFirstHeader("Retry-After");
+            if (null == header || null == header.getValue()) {
+                return -1;
+            }
+            String value = header.getValue().trim();
+            try {
+                return Math.max(0, Long.parseLong(value) * 1000);
+            } catch (NumberFormatException e) {
+                Date date = DateUtils.parseDate(value);
+                return null == date ? -1 : Math.max(0, date.getTime() - System.currentTimeMillis());
+            }
+
+        }
+
+    }
+
+}
@@ -0,0 +1,38 @@
+package com.lynchj.utils.socket;
+
+import java.io.IOException;
+
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpRequestBase;
+import org.apache.http.client.protocol.HttpClientContext;
+import org.apache.http.impl.client.CloseableHttpClient;
+
+/**
+ * 默认传输层: HttpClient 4.x 的 HTTP/1.1 连接池, 使用注册表中默认重试策略的客户端
+ *
+ * @author 大漠知秋
+ */
+class HttpClientTransport implements HttpTransport {
+
+    static final HttpClientTransport INSTANCE = new HttpClientTransport();
+
+    private HttpClientTransport() {
+    }
+
+    @Override
+    public CloseableHttpResponse execute(HttpRequestBase httpRequest, HttpClientContext clientContext) throws IOException {
+
+        CloseableHttpClient httpClient = HttpClientRegistry.getHttpClient();
+        if (null != clientContext) {
+            return httpClient.execute(httpRequest, clientContext);
+        }
+        return httpClient.execute(httpRequest);
+
+    }
+
+    @Override
+    public void shutdown() {
+        HttpClientRegistry.shutdown();
+    }
+
+}
@@ -0,0 +1,100 @@
+package com.lynchj.utils.socket;
+
+import org.apache.http.Header;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpEntityEnclosingRequest;
+import org.apache.http.HttpRequest;
+import org.apache.http.client.entity.GzipCompressingEntity;
+
+import com.lynchj.enums.ErrorStatusEnum;
+import com.lynchj.exception.LynchjException;
+
+/**
+ * 请求体压缩, 默认关闭
+ * 	开启后超过阈值的请求体以 gzip 流式压缩发送(Content-Encoding: gzip, 分块传输), 需要服务端支持;
+ * 	响应始终带 Accept-Encoding: gzip,deflate, 压缩的响应在读取时按流解压, 不会先缓冲整个压缩内容
+ *
+ * @author 大漠知秋
+ */
+public class HttpCompression {
+
+    public HttpCompression() {
+        throw new LynchjException(ErrorStatusEnum.CREATE_UTILS_ENTITY_ERROR);
+    }
+
+    /** 默认压缩阈值(字节) */
+    public static final int DEFAULT_THRESHOLD = 2 * 1024;
+
+    /** 是否开启 */
+    private static volatile boolean enabled = false;
+
+    /** 请求体达到此大小才压缩, 长度未知的请求体总是压缩 */
+    private static volatile int threshold = DEFAULT_THRESHOLD;
+
+    /**
+     * 使用默认阈值开启请求体压缩
+     */
+    public static void enable() {
+        enable(DEFAULT_THRESHOLD);
+    }
+
+    /**
+     * 开启请求体压缩
+     *
+     * @param threshold 压缩阈值(字节), 请求体达到此大小才压缩
+     */
+    public static void enable(int threshold) {
+
+        if (threshold < 0) {
+            throw new LynchjException(ErrorStatusEnum.NULL_VALUE_ERROR);
+        }
+        HttpCompression.threshold = threshold;
+        enabled = true;
+
+    }
+
+    /**
+     * 关闭请求体压缩
+     */
+    public static void disable() {
+        enabled = false;
+    }
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    public static int getThreshold() {
+        return threshold;
+    }
+
+    /**
+     * 按需压缩请求体, 未开启、没有请求体、已指定 Content-Encoding、multipart 或小于阈值时不做任何操作
+     *
+     * @param request 请求
+     */
+    static void compress(HttpRequest request) {
+
+        if (!enabled || !(request instanceof HttpEntityEnclosingRequest)) {
+            return;
+        }
+        HttpEntityEnclosingRequest entityRequest = (HttpEntityEnclosingRequest) request;
+        HttpEntity entity = entityRequest.getEntity();
+        if (null == entity || null != entity.getContentEncoding() || entity instanceof GzipCompressingEntity) {
+            return;
+        }
+        Header contentType = entity.getContentType();
+        if (null != contentType && contentType.getValue().startsWith("multipart/")) {
+            // 上传的文件多为已压缩格式, 且服务端普遍不支持解压 multipart 请求体
+            return;
+        }
+        long length = entity.getContentLength();
+        if (length >= 0 && length < threshold) {
+            return;
+        }
+
+        entityRequest.setEntity(new GzipCompressingEntity(entity));
+
+    }
+
+}
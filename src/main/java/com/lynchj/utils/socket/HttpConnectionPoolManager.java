@@ -0,0 +1,452 @@
+package com.lynchj.utils.socket;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.http.HttpClientConnection;
+import org.apache.http.HttpHost;
+import org.apache.http.HttpResponse;
+import org.apache.http.client.protocol.HttpClientContext;
+import org.apache.http.conn.ConnectionKeepAliveStrategy;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.protocol.HttpContext;
+
+import com.lynchj.enums.ErrorStatusEnum;
+import com.lynchj.exception.LynchjException;
+
+/**
+ * 连接池管理
+ * 	后台定时关闭过期和空闲过久的连接, 连接空闲一段时间后复用前先校验,
+ * 	长连接保持时间优先使用服务端 Keep-Alive 响应头, 没有时使用默认值,
+ * 	连接数可以按主机在运行中调整, 也可以开启自适应调整, 发布后可以预热连接避免冷启动时集中握手
+ *
+ * @author 大漠知秋
+ */
+public class HttpConnectionPoolManager {
+
+    public HttpConnectionPoolManager() {
+        throw new LynchjException(ErrorStatusEnum.CREATE_UTILS_ENTITY_ERROR);
+    }
+
+    /** 默认长连接保持时间(毫秒) */
+    public static final long DEFAULT_KEEP_ALIVE_MILLIS = 30 * 1000;
+
+    /** 默认最大空闲时间(毫秒) */
+    public static final long DEFAULT_MAX_IDLE_MILLIS = 60 * 1000;
+
+    /** 默认清理间隔(毫秒) */
+    public static final long DEFAULT_EVICTION_INTERVAL_MILLIS = 5 * 1000;
+
+    /** 默认预热超时时间(毫秒) */
+    public static final int DEFAULT_WARM_UP_TIMEOUT_MILLIS = 10 * 1000;
+
+    /** 默认空闲多久后复用前校验连接(毫秒) */
+    public static final int DEFAULT_VALIDATE_AFTER_INACTIVITY_MILLIS = 2 * 1000;
+
+    /** 服务端没有返回 Keep-Alive 时的长连接保持时间 */
+    private static volatile long keepAliveMillis = DEFAULT_KEEP_ALIVE_MILLIS;
+
+    /** 空闲超过此时间的连接会被关闭 */
+    private static volatile long maxIdleMillis = DEFAULT_MAX_IDLE_MILLIS;
+
+    /** 空闲多久后复用前校验连接, 连接池创建前设置时在创建时生效 */
+    private static volatile int validateAfterInactivityMillis = DEFAULT_VALIDATE_AFTER_INACTIVITY_MILLIS;
+
+    /** 长连接保持策略 */
+    private static final ConnectionKeepAliveStrategy KEEP_ALIVE_STRATEGY = new KeepAliveStrategy();
+
+    /** 清理线程 */
+    private static ScheduledExecutorService evictor;
+
+    /** 默认自适应调整间隔(毫秒) */
+    public static final long DEFAULT_ADAPTIVE_INTERVAL_MILLIS = 2 * 1000;
+
+    /** 手动指定连接数的路由 */
+    private static final Set<HttpRoute> PINNED_ROUTES = ConcurrentHashMap.newKeySet();
+
+    /** 自适应调整, 未开启时为null */
+    private static volatile AdaptiveRouteLimiter adaptiveRouteLimiter;
+
+    /**
+     * 设置服务端没有返回 Keep-Alive 时的长连接保持时间
+     *
+     * @param millis 毫秒, 小于等于0表示不限制
+     */
+    public static void setDefaultKeepAlive(long millis) {
+        keepAliveMillis = millis;
+    }
+
+    public static long getDefaultKeepAlive() {
+        return keepAliveMillis;
+    }
+
+    /**
+     * 设置最大空闲时间, 下一次清理时生效
+     *
+     * @param millis 毫秒
+     */
+    public static void setMaxIdleTime(long millis) {
+        maxIdleMillis = millis;
+    }
+
+    public static long getMaxIdleTime() {
+        return maxIdleMillis;
+    }
+
+    /**
+     * 设置连接空闲多久后在复用前校验是否已被服务端关闭
+     *
+     * @param millis 毫秒, 小于等于0表示不校验
+     */
+    public static void setValidateAfterInactivity(int millis) {
+
+        validateAfterInactivityMillis = millis;
+        PoolingHttpClientConnectionManager connManager = HttpRequestUtils.getConnectionManagerIfInitialized();
+        if (null != connManager) {
+            connManager.setValidateAfterInactivity(millis);
+        }
+
+    }
+
+    public static int getValidateAfterInactivity() {
+        return validateAfterInactivityMillis;
+    }
+
+    /**
+     * 设置连接池最大连接数, 运行中修改立即生效
+     *
+     * @param maxTotal 最大连接数
+     */
+    public static void setMaxTotal(int maxTotal) {
+        getConnManager().setMaxTotal(maxTotal);
+    }
+
+    /**
+     * 设置每个路由默认最大连接数, 运行中修改立即生效
+     *
+     * @param maxPerRoute 每个路由最大连接数
+     */
+    public static void setDefaultMaxPerRoute(int maxPerRoute) {
+        getConnManager().setDefaultMaxPerRoute(maxPerRoute);
+    }
+
+    /**
+     * 设置指定主机的最大连接数, 设置后该路由不参与自适应调整
+     *
+     * @param url 主机地址, 如: https://api.lynchj.com, 只使用协议、主机和端口
+     * @param maxPerRoute 最大连接数
+     */
+    public static void setMaxPerRoute(String url, int maxPerRoute) {
+
+        HttpRoute route = toRoute(url);
+        PINNED_ROUTES.add(route);
+        getConnManager().setMaxPerRoute(route, maxPerRoute);
+
+    }
+
+    /**
+     * 获取指定主机当前的最大连接数
+     *
+     * @param url 主机地址, 如: https://api.lynchj.com
+     * @return 最大连接数
+     */
+    public static int getMaxPerRoute(String url) {
+        return getConnManager().getMaxPerRoute(toRoute(url));
+    }
+
+    /**
+     * 取消指定主机的手动设置, 恢复默认连接数并重新参与自适应调整
+     *
+     * @param url 主机地址, 如: https://api.lynchj.com
+     */
+    public static void resetMaxPerRoute(String url) {
+
+        HttpRoute route = toRoute(url);
+        PINNED_ROUTES.remove(route);
+        PoolingHttpClientConnectionManager connManager = getConnManager();
+        connManager.setMaxPerRoute(route, connManager.getDefaultMaxPerRoute());
+
+    }
+
+    /**
+     * 按默认间隔开启自适应路由连接数调整
+     *
+     * @param minPerRoute 每个路由最小连接数
+     * @param maxPerRoute 每个路由最大连接数
+     */
+    public static void enableAdaptiveRouteLimits(int minPerRoute, int maxPerRoute) {
+        enableAdaptiveRouteLimits(minPerRoute, maxPerRoute, DEFAULT_ADAPTIVE_INTERVAL_MILLIS);
+    }
+
+    /**
+     * 开启自适应路由连接数调整: 根据等待租借数和响应耗时在上下限之间调整每个路由的连接数,
+     * 手动设置过的路由不参与调整, 已开启时按新参数重新开启
+     *
+     * @param minPerRoute 每个路由最小连接数
+     * @param maxPerRoute 每个路由最大连接数
+     * @param intervalMillis 调整间隔(毫秒)
+     */
+    public static synchronized void enableAdaptiveRouteLimits(int minPerRoute, int maxPerRoute, long intervalMillis) {
+
+        if (minPerRoute < 1 || maxPerRoute < minPerRoute || intervalMillis <= 0) {
+            throw new LynchjException(ErrorStatusEnum.NULL_VALUE_ERROR);
+        }
+        disableAdaptiveRouteLimits();
+        adaptiveRouteLimiter = new AdaptiveRouteLimiter(minPerRoute, maxPerRoute, intervalMillis, PINNED_ROUTES);
+
+    }
+
+    /**
+     * 关闭自适应路由连接数调整, 已调整的连接数保持不变
+     */
+    public static synchronized void disableAdaptiveRouteLimits() {
+
+        if (null != adaptiveRouteLimiter) {
+            adaptiveRouteLimiter.stop();
+            adaptiveRouteLimiter = null;
+        }
+
+    }
+
+    /**
+     * 是否开启了自适应路由连接数调整
+     *
+     * @return true: 已开启
+     */
+    public static boolean isAdaptiveRouteLimitsEnabled() {
+        return null != adaptiveRouteLimiter;
+    }
+
+    /**
+     * 记录路由的响应耗时, 供自适应调整使用, 未开启时不做任何操作
+     *
+     * @param route 路由
+     * @param nanos 耗时(纳秒)
+     */
+    static void recordRouteLatency(HttpRoute route, long nanos) {
+
+        AdaptiveRouteLimiter limiter = adaptiveRouteLimiter;
+        if (null != limiter && null != route) {
+            limiter.record(route, nanos);
+        }
+
+    }
+
+    /**
+     * 预热连接池, 使用默认超时时间
+     *
+     * @param hosts 主机地址集合, 如: https://api.lynchj.com
+     * @param connectionsPerHost 每个主机的连接数, 超过路由最大连接数时按最大连接数
+     * @return 预热后可用的连接数
+     */
+    public static int warmUp(Collection<String> hosts, int connectionsPerHost) {
+        return warmUp(hosts, connectionsPerHost, DEFAULT_WARM_UP_TIMEOUT_MILLIS);
+    }
+
+    /**
+     * 预热连接池: 并发建立连接并完成TLS握手, 全部建立后放回连接池, 按长连接保持时间保留,
+     * 连接池中已有的空闲连接会被计入, 单个连接失败只打印错误, 应用启动后、流量进入前调用
+     *
+     * @param hosts 主机地址集合, 如: https://api.lynchj.com
+     * @param connectionsPerHost 每个主机的连接数, 超过路由最大连接数时按最大连接数
+     * @param timeOutMillis 超时时间(毫秒): 从连接池获取连接的时间, 建立连接的时间
+     * @return 预热后可用的连接数
+     */
+    public static int warmUp(Collection<String> hosts, int connectionsPerHost, int timeOutMillis) {
+
+        if (null == hosts || connectionsPerHost < 1 || timeOutMillis <= 0) {
+            throw new LynchjException(ErrorStatusEnum.NULL_VALUE_ERROR);
+        }
+        PoolingHttpClientConnectionManager connManager = getConnManager();
+
+        List<CompletableFuture<HttpClientConnection>> futures = new ArrayList<>();
+        for (String host : hosts) {
+            HttpRoute route = toRoute(host);
+            int count = Math.min(connectionsPerHost, connManager.getMaxPerRoute(route));
+            for (int i = 0; i < count; i++) {
+                futures.add(CompletableFuture.supplyAsync(() -> openConnection(connManager, route, timeOutMillis), HttpExecutors.getExecutor()));
+            }
+        }
+
+        // 全部建立后再归还, 避免同一个连接被重复租借
+        List<HttpClientConnection> connections = new ArrayList<>();
+        for (CompletableFuture<HttpClientConnection> future : futures) {
+            HttpClientConnection connection = future.join();
+            if (null != connection) {
+                connections.add(connection);
+            }
+        }
+        for (HttpClientConnection connection : connections) {
+            connManager.releaseConnection(connection, null, keepAliveMillis, TimeUnit.MILLISECONDS);
+        }
+
+        return connections.size();
+
+    }
+
+    /**
+     * 租借一个连接, 未打开时建立连接
+     *
+     * @param connManager 连接池
+     * @param route 路由
+     * @param timeOutMillis 超时时间(毫秒)
+     * @return 已打开的连接, 失败时为null
+     */
+    private static HttpClientConnection openConnection(PoolingHttpClientConnectionManager connManager, HttpRoute route, int timeOutMillis) {
+
+        HttpClientConnection connection = null;
+        try {
+            connection = connManager.requestConnection(route, null).get(timeOutMillis, TimeUnit.MILLISECONDS);
+            if (!connection.isOpen()) {
+                HttpClientContext context = HttpClientContext.create();
+                connManager.connect(connection, route, timeOutMillis, context);
+                connManager.routeComplete(connection, route, context);
+            }
+            return connection;
+        } catch (Exception e) {
+            System.err.println("预热连接失败: " + route);
+            e.printStackTrace();
+            if (null != connection) {
+                // 未打开的连接归还后直接丢弃
+                connManager.releaseConnection(connection, null, 0, TimeUnit.MILLISECONDS);
+            }
+            return null;
+        }
+
+    }
+
+    /**
+     * 使用默认间隔启动后台清理, 已启动时不做任何操作
+     */
+    public static synchronized void startEvictor() {
+
+        if (null == evictor) {
+            startEvictor(DEFAULT_EVICTION_INTERVAL_MILLIS);
+        }
+
+    }
+
+    /**
+     * 按指定间隔启动后台清理, 已启动时按新间隔重新启动
+     *
+     * @param intervalMillis 清理间隔(毫秒)
+     */
+    public static synchronized void startEvictor(long intervalMillis) {
+
+        stopEvictor();
+        evictor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "lynchj-http-connection-evictor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        evictor.scheduleWithFixedDelay(HttpConnectionPoolManager::evict, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+
+    }
+
+    /**
+     * 停止后台清理
+     */
+    public static synchronized void stopEvictor() {
+
+        if (null != evictor) {
+            evictor.shutdownNow();
+            evictor = null;
+        }
+
+    }
+
+    /**
+     * 立即清理一次过期和空闲过久的连接
+     */
+    public static void evict() {
+
+        PoolingHttpClientConnectionManager connManager = HttpRequestUtils.getConnectionManagerIfInitialized();
+        if (null == connManager) {
+            return;
+        }
+        try {
+            connManager.closeExpiredConnections();
+            connManager.closeIdleConnections(maxIdleMillis, TimeUnit.MILLISECONDS);
+        } catch (RuntimeException e) {
+            System.err.println("清理空闲连接出错");
+            e.printStackTrace();
+        }
+
+    }
+
+    /**
+     * 获取连接池, 未创建时创建, 创建失败时抛出异常
+     *
+     * @return 连接池
+     */
+    private static PoolingHttpClientConnectionManager getConnManager() {
+        return HttpRequestUtils.getConnectionManager();
+    }
+
+    /**
+     * 按地址构建与请求执行时一致的直连路由
+     *
+     * @param url 主机地址
+     * @return 路由
+     */
+    static HttpRoute toRoute(String url) {
+
+        if (null == url) {
+            throw new LynchjException(ErrorStatusEnum.NULL_VALUE_ERROR);
+        }
+        return toRoute(URI.create(url));
+
+    }
+
+    /**
+     * 按地址构建与请求执行时一致的直连路由
+     *
+     * @param uri 主机地址
+     * @return 路由
+     */
+    static HttpRoute toRoute(URI uri) {
+
+        String scheme = null == uri.getScheme() ? "http" : uri.getScheme().toLowerCase();
+        boolean secure = "https".equals(scheme);
+        int port = uri.getPort();
+        if (port < 0) {
+            port = secure ? 443 : 80;
+        }
+
+        return new HttpRoute(new HttpHost(uri.getHost(), port, scheme), null, secure);
+
+    }
+
+    /**
+     * 长连接保持策略
+     *
+     * @return 策略
+     */
+    static ConnectionKeepAliveStrategy getKeepAliveStrategy() {
+        return KEEP_ALIVE_STRATEGY;
+    }
+
+    /**
+     * 优先使用服务端 Keep-Alive 响应头中的 timeout, 没有时使用默认保持时间
+     */
+    private static class KeepAliveStrategy implements ConnectionKeepAliveStrategy {
+
+        @Override
+        public long getKeepAliveDuration(HttpResponse response, HttpContext context) {
+            long duration = DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(response, context);
+            return duration < 0 ? keepAliveMillis : duration;
+        }
+
+    }
+
+}
@@ -0,0 +1,182 @@
+package com.lynchj.utils.socket;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 分段下载的结果, 未完成时可以通过 {@link HttpRangeDownloader#resume(HttpDownloadResult, Integer)} 继续下载
+ *
+ * @author 大漠知秋
+ */
+public class HttpDownloadResult {
+
+    /** 十六进制字符 */
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+    /** 下载地址 */
+    private final String url;
+
+    /** 请求头信息 */
+    private final Map<String, Object> headers;
+
+    /** 目标文件 */
+    private final File file;
+
+    /** 文件长度, 未知时为-1 */
+    private final long length;
+
+    /** 服务端是否支持分段 */
+    private final boolean rangeSupported;
+
+    /** 文件版本标识(强ETag或Last-Modified), 续传时用于 If-Range */
+    private final String validator;
+
+    /** 分段 */
+    private final List<HttpDownloadSegment> segments;
+
+    HttpDownloadResult(String url, Map<String, Object> headers, File file, long length, boolean rangeSupported,
+            String validator, List<HttpDownloadSegment> segments) {
+        this.url = url;
+        this.headers = headers;
+        this.file = file;
+        this.length = length;
+        this.rangeSupported = rangeSupported;
+        this.validator = validator;
+        this.segments = Collections.unmodifiableList(segments);
+    }
+
+    /**
+     * 是否所有分段都已下载完成
+     *
+     * @return true: 完成
+     */
+    public boolean isComplete() {
+
+        for (HttpDownloadSegment segment : segments) {
+            if (!segment.isComplete()) {
+                return false;
+            }
+        }
+        return true;
+
+    }
+
+    /**
+     * 未完成的分段
+     *
+     * @return 分段集合
+     */
+    public List<HttpDownloadSegment> getFailedSegments() {
+
+        List<HttpDownloadSegment> failed = new ArrayList<>();
+        for (HttpDownloadSegment segment : segments) {
+            if (!segment.isComplete()) {
+                failed.add(segment);
+            }
+        }
+        return failed;
+
+    }
+
+    /**
+     * 已写入的总字节数
+     *
+     * @return 字节数
+     */
+    public long getTransferred() {
+
+        long total = 0;
+        for (HttpDownloadSegment segment : segments) {
+            total += segment.getTransferred();
+        }
+        return total;
+
+    }
+
+    /**
+     * 计算文件摘要
+     *
+     * @param algorithm 摘要算法, 如: MD5、SHA-256
+     * @return 小写十六进制摘要
+     * @throws IOException
+     * @throws NoSuchAlgorithmException
+     */
+    public String digest(String algorithm) throws IOException, NoSuchAlgorithmException {
+
+        MessageDigest messageDigest = MessageDigest.getInstance(algorithm);
+        try (FileChannel fileChannel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(HttpStreamHandlers.DEFAULT_BUFFER_SIZE);
+            while (fileChannel.read(buffer) != -1) {
+                buffer.flip();
+                messageDigest.update(buffer);
+                buffer.clear();
+            }
+        }
+
+        byte[] bytes = messageDigest.digest();
+        char[] hex = new char[bytes.length * 2];
+        for (int i = 0; i < bytes.length; i++) {
+            hex[i * 2] = HEX_DIGITS[(bytes[i] >> 4) & 0xF];
+            hex[i * 2 + 1] = HEX_DIGITS[bytes[i] & 0xF];
+        }
+        return new String(hex);
+
+    }
+
+    /**
+     * 校验文件摘要, 未下载完成时直接返回false
+     *
+     * @param algorithm 摘要算法, 如: MD5、SHA-256
+     * @param expected 期望的十六进制摘要, 不区分大小写
+     * @return true: 一致
+     * @throws IOException
+     * @throws NoSuchAlgorithmException
+     */
+    public boolean verify(String algorithm, String expected) throws IOException, NoSuchAlgorithmException {
+        return isComplete() && null != expected && digest(algorithm).equalsIgnoreCase(expected.trim());
+    }
+
+    public String getUrl() {
+        return url;
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    public long getLength() {
+        return length;
+    }
+
+    public boolean isRangeSupported() {
+        return rangeSupported;
+    }
+
+    public List<HttpDownloadSegment> getSegments() {
+        return segments;
+    }
+
+    Map<String, Object> getHeaders() {
+        return headers;
+    }
+
+    String getValidator() {
+        return validator;
+    }
+
+    @Override
+    public String toString() {
+        return "HttpDownloadResult [url=" + url + ", file=" + file + ", length=" + length + ", rangeSupported="
+                + rangeSupported + ", segments=" + segments.size() + ", transferred=" + getTransferred() + "]";
+    }
+
+}
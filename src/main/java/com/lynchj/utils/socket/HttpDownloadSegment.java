@@ -0,0 +1,85 @@
+package com.lynchj.utils.socket;
+
+/**
+ * 分段下载中的一个分段
+ *
+ * @author 大漠知秋
+ */
+public class HttpDownloadSegment {
+
+    /** 分段下标 */
+    private final int index;
+
+    /** 起始位置(含) */
+    private final long start;
+
+    /** 结束位置(含), 文件长度未知时为-1 */
+    private final long end;
+
+    /** 已写入的字节数 */
+    private volatile long transferred;
+
+    /** 是否已下载完成 */
+    private volatile boolean complete;
+
+    /** 最近一次下载出错时的异常 */
+    private volatile Throwable exception;
+
+    HttpDownloadSegment(int index, long start, long end) {
+        this.index = index;
+        this.start = start;
+        this.end = end;
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public long getStart() {
+        return start;
+    }
+
+    public long getEnd() {
+        return end;
+    }
+
+    /**
+     * 分段长度
+     *
+     * @return 字节数, 文件长度未知时为-1
+     */
+    public long getLength() {
+        return end < 0 ? -1 : end - start + 1;
+    }
+
+    public long getTransferred() {
+        return transferred;
+    }
+
+    public Throwable getException() {
+        return exception;
+    }
+
+    public boolean isComplete() {
+        return complete;
+    }
+
+    void setTransferred(long transferred) {
+        this.transferred = transferred;
+    }
+
+    void setComplete(boolean complete) {
+        this.complete = complete;
+    }
+
+    void setException(Throwable exception) {
+        this.exception = exception;
+    }
+
+    @Override
+    public String toString() {
+        return "HttpDownloadSegment [index=" + index + ", start=" + start + ", end=" + end + ", transferred="
+                + transferred + ", complete=" + complete + ", exception=" + exception + "]";
+    }
+
+}
@@ -0,0 +1,135 @@
+package com.lynchj.utils.socket;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.lynchj.enums.ErrorStatusEnum;
+import com.lynchj.exception.LynchjException;
+
+/**
+ * 执行阻塞Http调用的线程池, 供批量请求和异步工具使用
+ * 	默认使用平台线程的缓存线程池; 运行在支持虚拟线程的 JDK(21+)上时可以开启虚拟线程模式,
+ * 	每个任务一个虚拟线程, 阻塞在网络读写和连接池租借(ReentrantLock)上时不占用载体线程;
+ * 	启动参数 -Dlynchj.http.virtualThreads=true 时自动开启, Java 8 上自动退回平台线程池
+ *
+ * @author 大漠知秋
+ */
+public class HttpExecutors {
+
+    public HttpExecutors() {
+        throw new LynchjException(ErrorStatusEnum.CREATE_UTILS_ENTITY_ERROR);
+    }
+
+    /** 开启虚拟线程模式的系统属性 */
+    public static final String VIRTUAL_THREADS_PROPERTY = "lynchj.http.virtualThreads";
+
+    /** 平台线程池 */
+    private static final ExecutorService PLATFORM_EXECUTOR = Executors.newCachedThreadPool(new WorkerThreadFactory());
+
+    /** 虚拟线程执行器, 未开启时为null */
+    private static volatile ExecutorService virtualExecutor;
+
+    static {
+        if (Boolean.getBoolean(VIRTUAL_THREADS_PROPERTY)) {
+            enableVirtualThreads();
+        }
+    }
+
+    /**
+     * 当前运行环境是否支持虚拟线程
+     *
+     * @return true: 支持
+     */
+    public static boolean isVirtualThreadsSupported() {
+        return null != getVirtualThreadFactoryMethod();
+    }
+
+    /**
+     * 开启虚拟线程模式, 不支持时继续使用平台线程池
+     *
+     * @return true: 已开启
+     */
+    public static synchronized boolean enableVirtualThreads() {
+
+        if (null != virtualExecutor) {
+            return true;
+        }
+        Method method = getVirtualThreadFactoryMethod();
+        if (null == method) {
+            return false;
+        }
+        try {
+            virtualExecutor = (ExecutorService) method.invoke(null);
+            return true;
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            // 预览版 JDK 未开启预览特性时会抛出 UnsupportedOperationException
+            System.err.println("虚拟线程不可用, 使用平台线程池");
+            e.printStackTrace();
+            return false;
+        }
+
+    }
+
+    /**
+     * 关闭虚拟线程模式, 已提交的任务继续执行完
+     */
+    public static synchronized void disableVirtualThreads() {
+
+        if (null != virtualExecutor) {
+            virtualExecutor.shutdown();
+            virtualExecutor = null;
+        }
+
+    }
+
+    public static boolean isVirtualThreadsEnabled() {
+        return null != virtualExecutor;
+    }
+
+    /**
+     * 当前使用的执行器
+     *
+     * @return 开启虚拟线程模式时为虚拟线程执行器, 否则为平台线程池
+     */
+    public static ExecutorService getExecutor() {
+
+        ExecutorService executor = virtualExecutor;
+        return null == executor ? PLATFORM_EXECUTOR : executor;
+
+    }
+
+    /**
+     * 通过反射获取 Executors.newVirtualThreadPerTaskExecutor, 保持 Java 8 编译兼容
+     *
+     * @return 方法, 不支持时为null
+     */
+    private static Method getVirtualThreadFactoryMethod() {
+
+        try {
+            return Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+
+    }
+
+    /**
+     * 平台线程工厂, 使用守护线程避免阻止应用退出
+     */
+    private static class WorkerThreadFactory implements ThreadFactory {
+
+        private final AtomicInteger threadNumber = new AtomicInteger(1);
+
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, "lynchj-http-worker-" + threadNumber.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        }
+
+    }
+
+}
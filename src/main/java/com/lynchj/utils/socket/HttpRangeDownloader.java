@@ -0,0 +1,416 @@
+package com.lynchj.utils.socket;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.apache.http.Header;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpResponse;
+import org.apache.http.client.HttpResponseException;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.methods.HttpHead;
+import org.apache.http.util.EntityUtils;
+
+import com.lynchj.enums.ErrorStatusEnum;
+import com.lynchj.exception.LynchjException;
+
+/**
+ * 基于 Range 请求的分段并行下载
+ * 	先用 HEAD 请求获取文件长度和 Accept-Ranges, 支持分段时按分段大小切分, 通过连接池并发下载,
+ * 	每个分段按位置直接写入预先分配好长度的文件; 服务端不支持分段或长度未知时退化为单个请求顺序写入;
+ * 	失败的分段记录在结果中, 可以从已写入的位置继续下载, 续传时带 If-Range, 文件已变化则分段失败;
+ * 	探测和分段请求都带 Accept-Encoding: identity, 长度和分段范围都针对未压缩的原始内容;
+ * 	跳转按 {@link HttpRequestUtils} 的方式处理(302 转为 post), 下载地址应为最终地址
+ *
+ * @author 大漠知秋
+ */
+public class HttpRangeDownloader {
+
+    public HttpRangeDownloader() {
+        throw new LynchjException(ErrorStatusEnum.CREATE_UTILS_ENTITY_ERROR);
+    }
+
+    /** 默认分段大小 */
+    public static final long DEFAULT_SEGMENT_SIZE = 8 * 1024 * 1024;
+
+    /** 默认并发数 */
+    public static final int DEFAULT_PARALLELISM = 4;
+
+    /** 不压缩, 压缩后的长度和 Range 针对的是压缩内容, 分段无法拼接 */
+    private static final String IDENTITY_ENCODING = "identity";
+
+    /** 等待没有进展的最长时间与超时时间的倍数: 获取连接、建立连接、读取数据各一次超时, 再留一次重试的余量 */
+    private static final int AWAIT_TIMEOUT_FACTOR = 4;
+
+    /**
+     * 使用默认分段大小和并发数下载
+     *
+     * @param url 下载地址
+     * @param headers 请求头信息
+     * @param file 目标文件, 已存在时覆盖
+     * @param timeOut 超时时间(毫秒):从连接池获取连接的时间,请求时间,响应时间
+     * @return 下载结果
+     * @throws IOException 探测文件信息失败
+     * @throws InterruptedException
+     */
+    public static HttpDownloadResult download(String url, Map<String, Object> headers, File file, Integer timeOut) throws IOException, InterruptedException {
+        return download(url, headers, file, timeOut, DEFAULT_SEGMENT_SIZE, DEFAULT_PARALLELISM);
+    }
+
+    /**
+     * 分段并行下载, 单个分段失败不会抛出异常, 通过结果判断是否完成
+     *
+     * @param url 下载地址
+     * @param headers 请求头信息
+     * @param file 目标文件, 已存在时覆盖
+     * @param timeOut 超时时间(毫秒):从连接池获取连接的时间,请求时间,响应时间
+     * @param segmentSize 分段大小(字节)
+     * @param parallelism 最大并发数, 不要超过连接池每个路由的最大连接数
+     * @return 下载结果
+     * @throws IOException 探测文件信息失败
+     * @throws InterruptedException
+     */
+    public static HttpDownloadResult download(String url, Map<String, Object> headers, File file, Integer timeOut, long segmentSize, int parallelism) throws IOException, InterruptedException {
+
+        if (null == url || null == file || segmentSize < 1 || parallelism < 1) {
+            throw new LynchjException(ErrorStatusEnum.NULL_VALUE_ERROR);
+        }
+
+        HttpDownloadResult result = probe(url, headers, file, timeOut, segmentSize);
+
+        // 预先分配文件长度, 各分段按位置写入
+        try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw")) {
+            randomAccessFile.setLength(Math.max(0, result.getLength()));
+        }
+
+        run(result, result.getSegments(), timeOut, parallelism);
+        return result;
+
+    }
+
+    /**
+     * 继续下载未完成的分段, 使用默认并发数
+     *
+     * @param result 下载结果
+     * @param timeOut 超时时间(毫秒)
+     * @return 同一个下载结果
+     * @throws IOException
+     * @throws InterruptedException
+     */
+    public static HttpDownloadResult resume(HttpDownloadResult result, Integer timeOut) throws IOException, InterruptedException {
+        return resume(result, timeOut, DEFAULT_PARALLELISM);
+    }
+
+    /**
+     * 继续下载未完成的分段, 支持分段时从已写入的位置继续
+     *
+     * @param result 下载结果
+     * @param timeOut 超时时间(毫秒)
+     * @param parallelism 最大并发数
+     * @return 同一个下载结果
+     * @throws IOException
+     * @throws InterruptedException
+     */
+    public static HttpDownloadResult resume(HttpDownloadResult result, Integer timeOut, int parallelism) throws IOException, InterruptedException {
+
+        if (null == result || parallelism < 1) {
+            throw new LynchjException(ErrorStatusEnum.NULL_VALUE_ERROR);
+        }
+
+        run(result, result.getFailedSegments(), timeOut, parallelism);
+        return result;
+
+    }
+
+    /**
+     * 探测文件长度和分段支持情况, 生成分段
+     *
+     * @param url 下载地址
+     * @param headers 请求头信息
+     * @param file 目标文件
+     * @param timeOut 超时时间(毫秒)
+     * @param segmentSize 分段大小
+     * @return 未开始下载的结果
+     * @throws IOException
+     */
+    private static HttpDownloadResult probe(String url, Map<String, Object> headers, File file, Integer timeOut, long segmentSize) throws IOException {
+
+        HttpHead httpHead = new HttpHead(url);
+        HttpRequestUtils.addHeaders(httpHead, headers);
+        httpHead.setHeader("Accept-Encoding", IDENTITY_ENCODING);
+
+        return HttpRequestUtils.executeForResponse(httpHead, timeOut, null, response -> {
+            EntityUtils.consumeQuietly(response.getEntity());
+            int statusCode = response.getStatusLine().getStatusCode();
+            if (200 != statusCode) {
+                throw new HttpResponseException(statusCode, "探测文件信息失败");
+            }
+
+            long length = parseLong(response.getFirstHeader("Content-Length"));
+            Header acceptRanges = response.getFirstHeader("Accept-Ranges");
+            boolean rangeSupported = length > 0 && null != acceptRanges && acceptRanges.getValue().toLowerCase().contains("bytes");
+
+            List<HttpDownloadSegment> segments = new ArrayList<>();
+            if (rangeSupported) {
+                int index = 0;
+                for (long start = 0; start < length; start += segmentSize) {
+                    segments.add(new HttpDownloadSegment(index++, start, Math.min(length, start + segmentSize) - 1));
+                }
+            } else {
+                segments.add(new HttpDownloadSegment(0, 0, length - 1));
+            }
+
+            return new HttpDownloadResult(url, headers, file, length, rangeSupported, getValidator(response), segments);
+        });
+
+    }
+
+    /**
+     * 并发下载分段, 工作任务依次领取分段, 等待所有分段结束
+     *
+     * @param result 下载结果
+     * @param segments 需要下载的分段
+     * @param timeOut 超时时间(毫秒)
+     * @param parallelism 最大并发数
+     * @throws IOException
+     * @throws InterruptedException
+     */
+    private static void run(HttpDownloadResult result, Collection<HttpDownloadSegment> segments, Integer timeOut, int parallelism) throws IOException, InterruptedException {
+
+        if (segments.isEmpty()) {
+            return;
+        }
+
+        try (FileChannel fileChannel = FileChannel.open(result.getFile().toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            Queue<HttpDownloadSegment> queue = new ConcurrentLinkedQueue<>(segments);
+            // 计数器按工作任务计数, 提交被拒绝或工作任务异常退出时也会减少, 不会一直等待
+            int workerCount = Math.min(parallelism, segments.size());
+            CountDownLatch latch = new CountDownLatch(workerCount);
+            Exception rejected = null;
+            for (int i = 0; i < workerCount; i++) {
+                try {
+                    HttpExecutors.getExecutor().execute(() -> {
+                        try {
+                            HttpDownloadSegment segment;
+                            while ((segment = queue.poll()) != null) {
+                                try {
+                                    downloadSegment(result, segment, fileChannel, timeOut);
+                                    segment.setComplete(true);
+                                } catch (Exception e) {
+                                    segment.setException(e);
+                                }
+                            }
+                        } finally {
+                            latch.countDown();
+                        }
+                    });
+                } catch (RejectedExecutionException e) {
+                    rejected = e;
+                    latch.countDown();
+                }
+            }
+
+            Exception cause;
+            if (await(result, latch, timeOut)) {
+                cause = null != rejected ? rejected : new IllegalStateException("工作任务异常退出, 分段未下载");
+            } else {
+                // 长时间没有进展, 清空队列, 关闭文件后仍在运行的分段写入失败
+                queue.clear();
+                cause = new TimeoutException("分段下载超过 " + (long) timeOut * AWAIT_TIMEOUT_FACTOR + " 毫秒没有进展");
+            }
+            for (HttpDownloadSegment segment : segments) {
+                if (!segment.isComplete() && null == segment.getException()) {
+                    segment.setException(cause);
+                }
+            }
+
+            // 长度未知时以实际写入的长度为准
+            if (result.getLength() < 0) {
+                fileChannel.truncate(result.getSegments().get(0).getTransferred());
+            }
+        }
+
+    }
+
+    /**
+     * 等待所有工作任务结束, 超时时间未设置时一直等待,
+     * 	否则每次等待 超时时间 * 4, 期间没有写入任何数据时放弃
+     *
+     * @param result 下载结果
+     * @param latch 工作任务计数器
+     * @param timeOut 超时时间(毫秒)
+     * @return true: 所有工作任务已结束; false: 没有进展
+     * @throws InterruptedException
+     */
+    private static boolean await(HttpDownloadResult result, CountDownLatch latch, Integer timeOut) throws InterruptedException {
+
+        if (null == timeOut || timeOut <= 0) {
+            latch.await();
+            return true;
+        }
+        long transferred = result.getTransferred();
+        while (!latch.await((long) timeOut * AWAIT_TIMEOUT_FACTOR, TimeUnit.MILLISECONDS)) {
+            long current = result.getTransferred();
+            if (current == transferred) {
+                return false;
+            }
+            transferred = current;
+        }
+        return true;
+
+    }
+
+    /**
+     * 下载单个分段, 支持分段时从已写入的位置继续, 否则从头开始
+     *
+     * @param result 下载结果
+     * @param segment 分段
+     * @param fileChannel 文件通道
+     * @param timeOut 超时时间(毫秒)
+     * @throws IOException
+     */
+    private static void downloadSegment(HttpDownloadResult result, HttpDownloadSegment segment, FileChannel fileChannel, Integer timeOut) throws IOException {
+
+        segment.setException(null);
+        HttpGet httpGet = new HttpGet(result.getUrl());
+        HttpRequestUtils.addHeaders(httpGet, result.getHeaders());
+        httpGet.setHeader("Accept-Encoding", IDENTITY_ENCODING);
+
+        long from;
+        if (result.isRangeSupported()) {
+            from = segment.getStart() + segment.getTransferred();
+            httpGet.setHeader("Range", "bytes=" + from + "-" + segment.getEnd());
+            if (null != result.getValidator()) {
+                httpGet.setHeader("If-Range", result.getValidator());
+            }
+        } else {
+            from = 0;
+            segment.setTransferred(0);
+        }
+        int expectedStatus = result.isRangeSupported() ? 206 : 200;
+
+        HttpRequestUtils.executeForResponse(httpGet, timeOut, null, response -> {
+            int statusCode = response.getStatusLine().getStatusCode();
+            HttpEntity entity = response.getEntity();
+            if (expectedStatus != statusCode || null == entity) {
+                EntityUtils.consumeQuietly(entity);
+                // 支持分段时返回200说明文件已变化(If-Range 不匹配)
+                throw new HttpResponseException(statusCode, "分段下载失败: " + segment.getIndex());
+            }
+            if (result.isRangeSupported() && from != parseRangeStart(response)) {
+                EntityUtils.consumeQuietly(entity);
+                throw new HttpResponseException(statusCode, "Content-Range 与请求不一致: " + segment.getIndex());
+            }
+            try (InputStream inputStream = entity.getContent()) {
+                write(inputStream, fileChannel, segment);
+            }
+            return null;
+        });
+
+        if (segment.getLength() >= 0 && segment.getTransferred() != segment.getLength()) {
+            throw new IOException("分段数据不完整: " + segment.getIndex() + ", " + segment.getTransferred() + "/" + segment.getLength());
+        }
+
+    }
+
+    /**
+     * 把响应流按位置写入文件, 边写边记录已写入的字节数
+     *
+     * @param inputStream 响应流
+     * @param fileChannel 文件通道
+     * @param segment 分段
+     * @throws IOException
+     */
+    private static void write(InputStream inputStream, FileChannel fileChannel, HttpDownloadSegment segment) throws IOException {
+
+        ReadableByteChannel channel = Channels.newChannel(inputStream);
+        ByteBuffer buffer = ByteBuffer.allocateDirect(HttpStreamHandlers.DEFAULT_BUFFER_SIZE);
+        long length = segment.getLength();
+        while (channel.read(buffer) != -1) {
+            buffer.flip();
+            if (length >= 0 && segment.getTransferred() + buffer.remaining() > length) {
+                throw new IOException("分段数据超出长度: " + segment.getIndex());
+            }
+            while (buffer.hasRemaining()) {
+                long position = segment.getStart() + segment.getTransferred();
+                segment.setTransferred(segment.getTransferred() + fileChannel.write(buffer, position));
+            }
+            buffer.clear();
+        }
+
+    }
+
+    /**
+     * 文件版本标识, 只使用强ETag, 否则使用 Last-Modified
+     *
+     * @param response 响应
+     * @return 版本标识, 都没有时为null
+     */
+    private static String getValidator(HttpResponse response) {
+
+        Header eTag = response.getFirstHeader("ETag");
+        if (null != eTag && !eTag.getValue().startsWith("W/")) {
+            return eTag.getValue();
+        }
+        Header lastModified = response.getFirstHeader("Last-Modified");
+        return null == lastModified ? null : lastModified.getValue();
+
+    }
+
+    /**
+     * 解析 Content-Range: bytes start-end/total 中的起始位置
+     *
+     * @param response 响应
+     * @return 起始位置, 无法解析时为-1
+     */
+    private static long parseRangeStart(HttpResponse response) {
+
+        Header contentRange = response.getFirstHeader("Content-Range");
+        if (null == contentRange) {
+            return -1;
+        }
+        String value = contentRange.getValue().trim();
+        int space = value.indexOf(' ');
+        int dash = value.indexOf('-', space + 1);
+        if (space < 0 || dash < 0) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(value.substring(space + 1, dash).trim());
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+
+    }
+
+    private static long parseLong(Header header) {
+
+        if (null == header) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(header.getValue().trim());
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+
+    }
+
+}
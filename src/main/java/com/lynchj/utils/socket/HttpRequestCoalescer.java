@@ -0,0 +1,156 @@
+package com.lynchj.utils.socket;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+import com.lynchj.enums.ErrorStatusEnum;
+import com.lynchj.exception.LynchjException;
+
+/**
+ * 相同请求合并(single-flight), 默认关闭
+ * 	开启后, 同一时刻方法、地址、排序后的参数和指定请求头都相同的get请求只有一个真正发出,
+ * 	其余请求等待它的结果并共享, 避免缓存失效时大量相同请求同时打到下游;
+ * 	Authorization 和 Cookie 总是参与合并判断, 凭证不同的请求不会共享响应
+ *
+ * @author 大漠知秋
+ */
+public class HttpRequestCoalescer {
+
+    public HttpRequestCoalescer() {
+        throw new LynchjException(ErrorStatusEnum.CREATE_UTILS_ENTITY_ERROR);
+    }
+
+    /** 是否开启 */
+    private static volatile boolean enabled = false;
+
+    /** 总是参与合并判断的请求头名称(小写), 凭证不同的响应因人而异 */
+    private static final Set<String> CREDENTIAL_HEADERS = Collections.unmodifiableSet(new TreeSet<>(Arrays.asList("authorization", "cookie")));
+
+    /** 参与合并判断的请求头名称(小写) */
+    private static volatile Set<String> keyHeaders = CREDENTIAL_HEADERS;
+
+    /** 正在进行中的请求 */
+    private static final ConcurrentMap<String, CompletableFuture<String>> IN_FLIGHT = new ConcurrentHashMap<>();
+
+    /** 真正发出的请求数 */
+    private static final LongAdder LEADER_COUNT = new LongAdder();
+
+    /** 被合并的请求数 */
+    private static final LongAdder COALESCED_COUNT = new LongAdder();
+
+    /**
+     * 开启请求合并
+     * 	Authorization 和 Cookie 总是参与合并判断, 不需要列出; 只有值也相同的请求才会合并
+     *
+     * @param keyHeaders 其它参与合并判断的请求头名称, 如: Accept-Language, 未列出的请求头不影响合并
+     */
+    public static void enable(String... keyHeaders) {
+
+        Set<String> names = new TreeSet<>(CREDENTIAL_HEADERS);
+        if (null != keyHeaders) {
+            for (String name : keyHeaders) {
+                if (null != name) {
+                    names.add(name.toLowerCase());
+                }
+            }
+        }
+        HttpRequestCoalescer.keyHeaders = Collections.unmodifiableSet(names);
+        enabled = true;
+
+    }
+
+    /**
+     * 关闭请求合并, 进行中的请求不受影响
+     */
+    public static void disable() {
+        enabled = false;
+    }
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 当前进行中的合并请求数
+     *
+     * @return 请求数
+     */
+    public static int getInFlightCount() {
+        return IN_FLIGHT.size();
+    }
+
+    public static long getLeaderCount() {
+        return LEADER_COUNT.sum();
+    }
+
+    public static long getCoalescedCount() {
+        return COALESCED_COUNT.sum();
+    }
+
+    /**
+     * 生成合并键: 方法 + 地址 + 按参数名排序的参数 + 凭证和指定的请求头
+     *
+     * @param method 请求方法
+     * @param url 请求地址
+     * @param headers 请求头信息
+     * @param params 请求参数
+     * @return 合并键
+     */
+    static String coalesceKey(String method, String url, Map<String, Object> headers, Map<String, Object> params) {
+
+        StringBuilder sb = new StringBuilder(method).append(' ').append(HttpResponseCache.cacheKey(url, params));
+        Set<String> names = keyHeaders;
+        if (null != headers && !headers.isEmpty()) {
+            Map<String, Object> selected = new TreeMap<>();
+            for (Map.Entry<String, Object> entry : headers.entrySet()) {
+                if (null != entry.getKey() && names.contains(entry.getKey().toLowerCase())) {
+                    selected.put(entry.getKey().toLowerCase(), entry.getValue());
+                }
+            }
+            sb.append('\n').append(selected);
+        }
+
+        return sb.toString();
+
+    }
+
+    /**
+     * 执行请求, 已有相同请求在进行中时等待并共享它的结果
+     *
+     * @param key 合并键
+     * @param call 真正发出请求的调用, 不能抛出异常
+     * @return 响应信息
+     */
+    static String execute(String key, Supplier<String> call) {
+
+        CompletableFuture<String> future = new CompletableFuture<>();
+        CompletableFuture<String> inFlight = IN_FLIGHT.putIfAbsent(key, future);
+        if (null != inFlight) {
+            COALESCED_COUNT.increment();
+            return inFlight.join();
+        }
+
+        LEADER_COUNT.increment();
+        try {
+            String result = call.get();
+            future.complete(result);
+            return result;
+        } catch (RuntimeException | Error e) {
+            future.completeExceptionally(e);
+            throw e;
+        } finally {
+            IN_FLIGHT.remove(key, future);
+        }
+
+    }
+
+}
@@ -0,0 +1,18 @@
+package com.lynchj.utils.socket;
+
+import java.io.IOException;
+
+/**
+ * 请求被限流或熔断拒绝, 请求没有发出
+ *
+ * @author 大漠知秋
+ */
+public class HttpRequestRejectedException extends IOException {
+
+    private static final long serialVersionUID = 1L;
+
+    public HttpRequestRejectedException(String message) {
+        super(message);
+    }
+
+}
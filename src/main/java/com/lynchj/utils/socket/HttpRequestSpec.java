@@ -0,0 +1,103 @@
+package com.lynchj.utils.socket;
+
+import java.io.UnsupportedEncodingException;
+import java.net.URISyntaxException;
+import java.util.Map;
+
+import org.apache.http.client.methods.HttpRequestBase;
+
+import com.lynchj.enums.ErrorStatusEnum;
+import com.lynchj.enums.HttpMethodEnum;
+import com.lynchj.exception.LynchjException;
+
+/**
+ * 批量请求中的单个请求描述
+ *
+ * @author 大漠知秋
+ */
+public class HttpRequestSpec {
+
+    /** 请求地址 */
+    private String url;
+
+    /** 请求方式 */
+    private HttpMethodEnum method;
+
+    /** 请求头信息 */
+    private Map<String, Object> headers;
+
+    /** 请求参数 */
+    private Map<String, Object> params;
+
+    public HttpRequestSpec() {
+    }
+
+    public HttpRequestSpec(String url, HttpMethodEnum method, Map<String, Object> headers, Map<String, Object> params) {
+        this.url = url;
+        this.method = method;
+        this.headers = headers;
+        this.params = params;
+    }
+
+    /**
+     * 按请求方式构建请求对象
+     *
+     * @return 请求对象
+     * @throws URISyntaxException
+     * @throws UnsupportedEncodingException
+     */
+    HttpRequestBase toHttpRequest() throws URISyntaxException, UnsupportedEncodingException {
+
+        if (null == url || null == method) {
+            throw new LynchjException(ErrorStatusEnum.NULL_VALUE_ERROR);
+        }
+
+        switch (method) {
+            case POST:
+                return HttpRequestUtils.buildHttpPost(url, headers, params);
+            case POST_BY_REQUEST_BODY:
+                return HttpRequestUtils.buildHttpPostByRequestBody(url, headers, params);
+            default:
+                return HttpRequestUtils.buildHttpGet(url, headers, params);
+        }
+
+    }
+
+    public String getUrl() {
+        return url;
+    }
+
+    public void setUrl(String url) {
+        this.url = url;
+    }
+
+    public HttpMethodEnum getMethod() {
+        return method;
+    }
+
+    public void setMethod(HttpMethodEnum method) {
+        this.method = method;
+    }
+
+    public Map<String, Object> getHeaders() {
+        return headers;
+    }
+
+    public void setHeaders(Map<String, Object> headers) {
+        this.headers = headers;
+    }
+
+    public Map<String, Object> getParams() {
+        return params;
+    }
+
+    public void setParams(Map<String, Object> params) {
+        this.params = params;
+    }
+
+    @Override
+    public String toString() {
+        return "HttpRequestSpec [url=" + url + ", method=" + method + ", headers=" + headers + ", params=" + params + "]";
+    }
+
+}
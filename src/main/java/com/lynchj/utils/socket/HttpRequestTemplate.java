@@ -0,0 +1,319 @@
+package com.lynchj.utils.socket;
+
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.http.Header;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.client.methods.HttpRequestBase;
+import org.apache.http.client.protocol.HttpClientContext;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.entity.ContentType;
+import org.apache.http.message.BasicHeader;
+
+import com.lynchj.enums.ErrorStatusEnum;
+import com.lynchj.enums.HttpMethodEnum;
+import com.lynchj.exception.LynchjException;
+
+/**
+ * 预编译的请求模板, 不可变, 可以在多个线程中共用
+ * 	创建时解析并校验地址、把固定请求头转换为 Header、编码参数名;
+ * 	每次请求只按参数顺序编码参数值, 编码使用线程内复用的缓冲区, 不经过 URIBuilder 和 NameValuePair;
+ * 	参数按 application/x-www-form-urlencoded(UTF-8) 编码, get 拼接在地址上, post 作为表单请求体;
+ * 	模板请求不经过响应缓存和请求合并
+ *
+ * @author 大漠知秋
+ */
+public class HttpRequestTemplate {
+
+    /** 表单内容类型 */
+    private static final ContentType FORM_CONTENT_TYPE = ContentType.create(ContentType.APPLICATION_FORM_URLENCODED.getMimeType(), HttpRequestUtils.ENCODING);
+
+    /** 十六进制字符 */
+    private static final char[] HEX_DIGITS = "0123456789ABCDEF".toCharArray();
+
+    /** 不需要编码的字符 */
+    private static final boolean[] SAFE_CHARS = new boolean[128];
+
+    /** 线程内复用的缓冲区超过此容量时不再保留 */
+    private static final int MAX_RETAINED_CAPACITY = 8 * 1024;
+
+    /** 线程内复用的编码缓冲区 */
+    private static final ThreadLocal<StringBuilder> BUFFER = ThreadLocal.withInitial(() -> new StringBuilder(256));
+
+    static {
+        for (char c = 'a'; c <= 'z'; c++) {
+            SAFE_CHARS[c] = true;
+        }
+        for (char c = 'A'; c <= 'Z'; c++) {
+            SAFE_CHARS[c] = true;
+        }
+        for (char c = '0'; c <= '9'; c++) {
+            SAFE_CHARS[c] = true;
+        }
+        SAFE_CHARS['-'] = true;
+        SAFE_CHARS['_'] = true;
+        SAFE_CHARS['.'] = true;
+        SAFE_CHARS['*'] = true;
+    }
+
+    /** 请求方式 */
+    private final HttpMethodEnum method;
+
+    /** 请求地址 */
+    private final URI uri;
+
+    /** get请求拼接参数前的地址, 不含锚点 */
+    private final String baseUrl;
+
+    /** get请求第一个参数前追加的分隔符: ? 或 &, 地址已以 ? 或 & 结尾时为0 */
+    private final char querySeparator;
+
+    /** 固定请求头 */
+    private final Header[] headers;
+
+    /** 参数名 */
+    private final String[] paramNames;
+
+    /** 已编码的参数名, 带 = */
+    private final String[] encodedNames;
+
+    /**
+     * @param method 请求方式, 支持 GET 和 POST(表单)
+     * @param url 请求地址, 可以已带查询参数
+     * @param headers 固定请求头信息
+     * @param paramNames 参数名, 请求时按此顺序传入参数值
+     * @throws URISyntaxException 地址格式错误
+     */
+    public HttpRequestTemplate(HttpMethodEnum method, String url, Map<String, Object> headers, String... paramNames) throws URISyntaxException {
+
+        if (null == url || (HttpMethodEnum.GET != method && HttpMethodEnum.POST != method)) {
+            throw new LynchjException(ErrorStatusEnum.NULL_VALUE_ERROR);
+        }
+        this.method = method;
+
+        // 去掉锚点, 锚点不会发送到服务端
+        int hash = url.indexOf('#');
+        String base = hash < 0 ? url : url.substring(0, hash);
+        this.uri = new URI(base);
+        if (null == uri.getScheme() || null == uri.getHost()) {
+            throw new URISyntaxException(url, "缺少协议或主机");
+        }
+        this.baseUrl = base;
+        if (base.indexOf('?') < 0) {
+            this.querySeparator = '?';
+        } else {
+            this.querySeparator = base.endsWith("?") || base.endsWith("&") ? 0 : '&';
+        }
+
+        if (null == headers) {
+            this.headers = new Header[0];
+        } else {
+            this.headers = new Header[headers.size()];
+            int i = 0;
+            for (Map.Entry<String, Object> entry : headers.entrySet()) {
+                this.headers[i++] = new BasicHeader(entry.getKey(), entry.getValue().toString());
+            }
+        }
+
+        this.paramNames = null == paramNames ? new String[0] : paramNames.clone();
+        this.encodedNames = new String[this.paramNames.length];
+        Set<String> distinct = new HashSet<>();
+        for (int i = 0; i < this.paramNames.length; i++) {
+            if (null == this.paramNames[i] || !distinct.add(this.paramNames[i])) {
+                throw new LynchjException(ErrorStatusEnum.NULL_VALUE_ERROR);
+            }
+            StringBuilder sb = new StringBuilder();
+            appendEncoded(sb, this.paramNames[i]);
+            this.encodedNames[i] = sb.append('=').toString();
+        }
+
+    }
+
+    /**
+     * 发起请求
+     *
+     * @param timeOut 超时时间(毫秒):从连接池获取连接的时间,请求时间,响应时间
+     * @param isStream 是否以流的方式获取响应信息
+     * @param clientContext Http请求客户端上下文对象，包含Cookie
+     * @param values 参数值, 与参数名一一对应, 为null的参数不发送
+     * @return 响应信息
+     */
+    public String execute(Integer timeOut, boolean isStream, HttpClientContext clientContext, Object... values) {
+        return HttpRequestUtils.getResult(bind(values), timeOut, isStream, clientContext);
+    }
+
+    /**
+     * 发起请求, 200响应的实体流交给处理器
+     *
+     * @param timeOut 超时时间(毫秒):从连接池获取连接的时间,请求时间,响应时间
+     * @param clientContext Http请求客户端上下文对象，包含Cookie
+     * @param handler 响应流处理器
+     * @param values 参数值, 与参数名一一对应, 为null的参数不发送
+     * @return 处理结果, 出错或非200响应为null
+     */
+    public <T> T execute(Integer timeOut, HttpClientContext clientContext, HttpStreamHandler<T> handler, Object... values) {
+        return HttpRequestUtils.getResult(bind(values), timeOut, clientContext, handler);
+    }
+
+    /**
+     * 绑定参数值, 生成请求对象
+     *
+     * @param values 参数值
+     * @return 请求对象
+     */
+    HttpRequestBase bind(Object... values) {
+
+        int count = null == values ? 0 : values.length;
+        if (count != paramNames.length) {
+            throw new LynchjException(ErrorStatusEnum.NULL_VALUE_ERROR);
+        }
+
+        StringBuilder sb = BUFFER.get();
+        sb.setLength(0);
+        HttpRequestBase httpRequest;
+        try {
+            if (HttpMethodEnum.GET == method) {
+                sb.append(baseUrl);
+                appendParams(sb, values, querySeparator);
+                httpRequest = new HttpGet(URI.create(sb.toString()));
+            } else {
+                appendParams(sb, values, (char) 0);
+                HttpPost httpPost = new HttpPost(uri);
+                httpPost.setEntity(new ByteArrayEntity(toAsciiBytes(sb), FORM_CONTENT_TYPE));
+                httpRequest = httpPost;
+            }
+        } finally {
+            if (sb.capacity() > MAX_RETAINED_CAPACITY) {
+                BUFFER.remove();
+            }
+        }
+        httpRequest.setHeaders(headers);
+
+        return httpRequest;
+
+    }
+
+    /**
+     * 按参数名顺序追加 名=值, 跳过为null的值
+     *
+     * @param sb 缓冲区
+     * @param values 参数值
+     * @param separator 第一个参数前追加的分隔符, 为0时不追加; 没有参数被追加时也不追加
+     */
+    private void appendParams(StringBuilder sb, Object[] values, char separator) {
+
+        boolean first = true;
+        for (int i = 0; i < encodedNames.length; i++) {
+            Object value = values[i];
+            if (null == value) {
+                continue;
+            }
+            if (!first) {
+                sb.append('&');
+            } else if (0 != separator) {
+                sb.append(separator);
+            }
+            first = false;
+            sb.append(encodedNames[i]);
+            if (value instanceof Integer || value instanceof Long) {
+                // 整数只有数字和负号, 不需要编码
+                sb.append(((Number) value).longValue());
+            } else {
+                appendEncoded(sb, value instanceof CharSequence ? (CharSequence) value : value.toString());
+            }
+        }
+
+    }
+
+    /**
+     * 按 application/x-www-form-urlencoded 以UTF-8编码并追加, 空格编码为 +
+     *
+     * @param sb 缓冲区
+     * @param s 原始字符
+     */
+    static void appendEncoded(StringBuilder sb, CharSequence s) {
+
+        int length = s.length();
+        for (int i = 0; i < length; i++) {
+            char c = s.charAt(i);
+            if (c < 128) {
+                if (SAFE_CHARS[c]) {
+                    sb.append(c);
+                } else if (' ' == c) {
+                    sb.append('+');
+                } else {
+                    appendByte(sb, c);
+                }
+                continue;
+            }
+
+            int codePoint = c;
+            if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(s.charAt(i + 1))) {
+                codePoint = Character.toCodePoint(c, s.charAt(++i));
+            } else if (Character.isSurrogate(c)) {
+                // 不成对的代理字符与 String.getBytes 一致, 替换为 ?
+                appendByte(sb, '?');
+                continue;
+            }
+
+            if (codePoint < 0x800) {
+                appendByte(sb, 0xC0 | (codePoint >> 6));
+                appendByte(sb, 0x80 | (codePoint & 0x3F));
+            } else if (codePoint < 0x10000) {
+                appendByte(sb, 0xE0 | (codePoint >> 12));
+                appendByte(sb, 0x80 | ((codePoint >> 6) & 0x3F));
+                appendByte(sb, 0x80 | (codePoint & 0x3F));
+            } else {
+                appendByte(sb, 0xF0 | (codePoint >> 18));
+                appendByte(sb, 0x80 | ((codePoint >> 12) & 0x3F));
+                appendByte(sb, 0x80 | ((codePoint >> 6) & 0x3F));
+                appendByte(sb, 0x80 | (codePoint & 0x3F));
+            }
+        }
+
+    }
+
+    private static void appendByte(StringBuilder sb, int b) {
+        sb.append('%').append(HEX_DIGITS[(b >> 4) & 0xF]).append(HEX_DIGITS[b & 0xF]);
+    }
+
+    /**
+     * 已编码的内容只有ASCII字符, 直接转换为字节
+     *
+     * @param sb 缓冲区
+     * @return 字节数组
+     */
+    private static byte[] toAsciiBytes(StringBuilder sb) {
+
+        byte[] bytes = new byte[sb.length()];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) sb.charAt(i);
+        }
+        return bytes;
+
+    }
+
+    public HttpMethodEnum getMethod() {
+        return method;
+    }
+
+    public URI getUri() {
+        return uri;
+    }
+
+    public String[] getParamNames() {
+        return paramNames.clone();
+    }
+
+    @Override
+    public String toString() {
+        return "HttpRequestTemplate [method=" + method + ", uri=" + uri + ", paramNames=" + Arrays.toString(paramNames) + "]";
+    }
+
+}
@@ -1,43 +1,27 @@
 package com.lynchj.utils.socket;
 
 import java.awt.*;
-import java.io.BufferedReader;
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileNotFoundException;
 import java.io.IOException;
-import java.io.InputStreamReader;
-import java.io.InterruptedIOException;
+import java.io.InputStream;
 import java.io.UnsupportedEncodingException;
 import java.net.SocketTimeoutException;
 import java.net.URISyntaxException;
-import java.net.UnknownHostException;
-import java.security.KeyManagementException;
-import java.security.KeyStore;
-import java.security.KeyStoreException;
-import java.security.NoSuchAlgorithmException;
-import java.security.cert.CertificateException;
-import java.security.cert.X509Certificate;
+import java.nio.charset.Charset;
+import java.security.GeneralSecurityException;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 
 import javax.net.ssl.SSLContext;
-import javax.net.ssl.SSLException;
 import javax.net.ssl.SSLHandshakeException;
-import javax.net.ssl.TrustManager;
-import javax.net.ssl.X509TrustManager;
 
 import org.apache.http.HttpEntity;
-import org.apache.http.HttpEntityEnclosingRequest;
-import org.apache.http.HttpRequest;
+import org.apache.http.HttpResponse;
 import org.apache.http.NameValuePair;
-import org.apache.http.NoHttpResponseException;
 import org.apache.http.ParseException;
 import org.apache.http.client.ClientProtocolException;
 import org.apache.http.client.CookieStore;
-import org.apache.http.client.HttpRequestRetryHandler;
-import org.apache.http.client.config.RequestConfig;
 import org.apache.http.client.entity.UrlEncodedFormEntity;
 import org.apache.http.client.methods.CloseableHttpResponse;
 import org.apache.http.client.methods.HttpGet;
@@ -51,20 +35,19 @@ import org.apache.http.conn.ConnectTimeoutException;
 import org.apache.http.conn.ConnectionPoolTimeoutException;
 import org.apache.http.conn.socket.ConnectionSocketFactory;
 import org.apache.http.conn.socket.PlainConnectionSocketFactory;
-import org.apache.http.conn.ssl.SSLConnectionSocketFactory;
-import org.apache.http.conn.ssl.TrustSelfSignedStrategy;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.entity.ContentType;
 import org.apache.http.entity.StringEntity;
-import org.apache.http.impl.client.BasicCookieStore;
-import org.apache.http.impl.client.CloseableHttpClient;
-import org.apache.http.impl.client.HttpClients;
+import org.apache.http.entity.mime.HttpMultipartMode;
+import org.apache.http.entity.mime.MultipartEntityBuilder;
 import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
 import org.apache.http.message.BasicNameValuePair;
-import org.apache.http.protocol.HttpContext;
-import org.apache.http.ssl.SSLContexts;
 import org.apache.http.ssl.SSLInitializationException;
 import org.apache.http.util.EntityUtils;
 
+import com.alibaba.fastjson.JSONException;
 import com.alibaba.fastjson.JSONObject;
+import com.alibaba.fastjson.TypeReference;
 import com.lynchj.enums.ErrorStatusEnum;
 import com.lynchj.exception.LynchjException;
 
@@ -93,167 +76,193 @@ public class HttpRequestUtils {
 		throw new LynchjException(ErrorStatusEnum.CREATE_UTILS_ENTITY_ERROR);
 	}
 	
-    /** 连接池 */
-    private static PoolingHttpClientConnectionManager connManager;
+    /** 连接池是否已创建 */
+    private static volatile boolean connManagerInitialized = false;
 
     /** 编码 */
-    private static final String ENCODING = "UTF-8";
+    static final String ENCODING = "UTF-8";
 
     /** 出错返回结果 */
-    private static final String RESULT = "-1";
+    static final String RESULT = "-1";
     
     /** 是否绕过证书 */
     private static final Boolean ROUND_CER = true;
 
+    /** 每个路由默认最大连接数 */
+    static final int DEFAULT_MAX_PER_ROUTE = 20;
+
+    /** 以流的方式读取字符串响应 */
+    private static final HttpStreamHandler<String> STREAM_STRING_HANDLER = HttpStreamHandlers.ofString(ENCODING);
+
+    /** 空响应实体 */
+    private static final HttpEntity EMPTY_ENTITY = new ByteArrayEntity(new byte[0]);
+
     /** json 格式 */
     private static final String CONTENT_TYPE_APPLICATION_JSON = "application/json";
 
     /**
-     * 初始化连接池管理器,配置SSL
+     * SSL上下文, 同步和异步客户端共用, 第一次使用时创建, 创建失败时保留原因
      */
-    static {
-        if (connManager == null) {
+    private static class SSLContextHolder {
+
+        static final SSLContext SSL_CONTEXT;
 
+        static final Exception ERROR;
+
+        static {
+            SSLContext sslContext = null;
+            Exception error = null;
             try {
-                // 创建ssl安全访问连接
-                // 获取创建ssl上下文对象
-                /**
-                 * 是否使用证书
-                 */
-            	File authFile = null;
-            	if (!ROUND_CER) {
-            		authFile = new File("C:/Users/lynch/Desktop/my.keystore");
-            	}
-                SSLContext sslContext = getSSLContext(ROUND_CER, authFile, "mypassword");
-
-                // 注册
-                Registry<ConnectionSocketFactory> registry = RegistryBuilder.<ConnectionSocketFactory>create()
-                    .register("http", PlainConnectionSocketFactory.INSTANCE)
-                    .register("https", new SSLConnectionSocketFactory(sslContext))
-                    .build();
-
-                // ssl注册到连接池
-                connManager = new PoolingHttpClientConnectionManager(registry);
-                connManager.setMaxTotal(1000);    // 连接池最大连接数
-                connManager.setDefaultMaxPerRoute(20);    // 每个路由最大连接数
-
-            } catch (SSLInitializationException e) {
-                e.printStackTrace();
-            } catch (KeyManagementException e) {
-                e.printStackTrace();
-            } catch (NoSuchAlgorithmException e) {
-                e.printStackTrace();
-            } catch (KeyStoreException e) {
-                e.printStackTrace();
-            } catch (CertificateException e) {
-                e.printStackTrace();
-            } catch (FileNotFoundException e) {
-                e.printStackTrace();
-            } catch (IOException e) {
+                sslContext = loadSSLContext();
+            } catch (SSLInitializationException | GeneralSecurityException | IOException e) {
+                System.err.println("SSL上下文初始化失败");
                 e.printStackTrace();
+                error = e;
             }
-
+            SSL_CONTEXT = sslContext;
+            ERROR = error;
         }
+
     }
 
     /**
-     * 获取客户端连接对象
-     * 
-     * @param timeOut 超时时间
-     * @return
-     */
-    private static CloseableHttpClient getHttpClient(Integer timeOut) {
-
-        // 配置请求参数
-        RequestConfig requestConfig = RequestConfig.custom()
-                .setConnectionRequestTimeout(timeOut).
-                setConnectTimeout(timeOut).
-                setSocketTimeout(timeOut).
-                build();
-        // 配置超时回调机制
-        HttpRequestRetryHandler retryHandler = new HttpRequestRetryHandler() {
-            public boolean retryRequest(IOException exception, int executionCount, HttpContext context) {
-                if (executionCount >= 3) {// 如果已经重试了3次，就放弃
-                    return false;
-                }
-                if (exception instanceof NoHttpResponseException) {// 如果服务器丢掉了连接，那么就重试
-                    return true;
-                }
-                if (exception instanceof SSLHandshakeException) {// 不要重试SSL握手异常
-                    return false;
-                }
-                if (exception instanceof InterruptedIOException) {// 超时
-                    return true;
-                }
-                if (exception instanceof UnknownHostException) {// 目标服务器不可达
-                    return false;
-                }
-                if (exception instanceof ConnectTimeoutException) {// 连接被拒绝
-                    return false;
-                }
-                if (exception instanceof SSLException) {// ssl握手异常
-                    return false;
-                }
-                HttpClientContext clientContext = HttpClientContext.adapt(context);
-                HttpRequest request = clientContext.getRequest();
-                // 如果请求是幂等的，就再次尝试
-                if (!(request instanceof HttpEntityEnclosingRequest)) {
-                    return true;
+     * 连接池, 第一次发起同步请求时创建, 创建失败时保留原因, 之后每次获取都带着原因抛出
+     */
+    private static class ConnectionManagerHolder {
+
+        static final PoolingHttpClientConnectionManager CONNECTION_MANAGER;
+
+        static final Exception ERROR;
+
+        static {
+            PoolingHttpClientConnectionManager connManager = null;
+            Exception error = SSLContextHolder.ERROR;
+            if (null == error) {
+                try {
+                    connManager = createConnectionManager();
+                } catch (RuntimeException e) {
+                    error = e;
                 }
-                return false;
             }
-        };
+            CONNECTION_MANAGER = connManager;
+            ERROR = error;
+        }
+
+    }
+
+    /**
+     * 按配置获取SSL上下文, 证书库方式在文件变化后重新加载
+     *
+     * @return SSL上下文对象
+     * @throws GeneralSecurityException
+     * @throws IOException
+     */
+    private static SSLContext loadSSLContext() throws GeneralSecurityException, IOException {
+
+        // 创建ssl安全访问连接
+        // 获取创建ssl上下文对象
+        /**
+         * 是否使用证书
+         */
+        File authFile = null;
+        if (!ROUND_CER) {
+            authFile = new File("C:/Users/lynch/Desktop/my.keystore");
+        }
+        return getSSLContext(ROUND_CER, authFile, "mypassword");
+
+    }
+
+    /**
+     * 创建连接池管理器,配置SSL,启动后台清理
+     *
+     * @return 连接池
+     */
+    private static PoolingHttpClientConnectionManager createConnectionManager() {
+
+        // 注册, 每次新建连接时取当前SSL上下文, 证书库更新后新连接使用新证书
+        Registry<ConnectionSocketFactory> registry = RegistryBuilder.<ConnectionSocketFactory>create()
+            .register("http", PlainConnectionSocketFactory.INSTANCE)
+            .register("https", new ReloadingSSLSocketFactory(HttpRequestUtils::loadSSLContext))
+            .build();
+
+        // ssl注册到连接池
+        PoolingHttpClientConnectionManager connManager = new InstrumentedConnectionManager(registry);
+        connManager.setMaxTotal(1000);    // 连接池最大连接数
+        connManager.setDefaultMaxPerRoute(DEFAULT_MAX_PER_ROUTE);    // 每个路由最大连接数
+        connManager.setValidateAfterInactivity(HttpConnectionPoolManager.getValidateAfterInactivity());    // 空闲后复用前校验
+
+        // 后台清理过期和空闲过久的连接
+        HttpConnectionPoolManager.startEvictor();
+
+        connManagerInitialized = true;
+        return connManager;
+
+    }
+
+    /**
+     * 获取共享的连接池管理器, 第一次调用时创建
+     *
+     * @return 连接池管理器
+     * @throws LynchjException 初始化失败, cause 为失败原因
+     */
+    static PoolingHttpClientConnectionManager getConnectionManager() {
+
+        PoolingHttpClientConnectionManager connManager = ConnectionManagerHolder.CONNECTION_MANAGER;
+        if (null == connManager) {
+            throw new LynchjException(ErrorStatusEnum.HTTP_CLIENT_INIT_ERROR, ConnectionManagerHolder.ERROR);
+        }
+        return connManager;
+
+    }
 
-        CloseableHttpClient httpClient = HttpClients.custom()
-                .setConnectionManager(connManager)
-                .setDefaultRequestConfig(requestConfig)
-                .setRetryHandler(retryHandler)
-                .build();
+    /**
+     * 获取已创建的连接池管理器, 不会触发创建, 供统计、清理和关闭使用
+     *
+     * @return 连接池管理器, 未创建或创建失败时为null
+     */
+    static PoolingHttpClientConnectionManager getConnectionManagerIfInitialized() {
+        return connManagerInitialized ? ConnectionManagerHolder.CONNECTION_MANAGER : null;
+    }
 
-        return httpClient;
+    /**
+     * 获取共享的SSL上下文对象, 第一次调用时创建
+     *
+     * @return SSL上下文对象, 创建失败时为null
+     */
+    static SSLContext getSharedSSLContext() {
+        return SSLContextHolder.SSL_CONTEXT;
+    }
 
+    /**
+     * 关闭所有客户端和连接池, 应用停止时调用
+     */
+    public static void shutdown() {
+        HttpClientRegistry.shutdown();
+        AsyncHttpRequestUtils.shutdown();
+        HttpTransports.shutdown();
     }
 
     /**
      * 获取SSL上下文对象,用来构建SSL Socket连接
+     * 	上下文已缓存, 会话复用配置见 {@link HttpSslContexts}
      * 
      * @param isDeceive 是否绕过SSL
      * @param creFile 整数文件,isDeceive为true 可传null
      * @param crePwd 整数密码,isDeceive为true 可传null, 空字符为没有密码
      * @return SSL上下文对象
-     * @throws KeyManagementException 
-     * @throws NoSuchAlgorithmException 
-     * @throws KeyStoreException 
+     * @throws GeneralSecurityException 
      * @throws IOException 
-     * @throws FileNotFoundException 
-     * @throws CertificateException 
      */
-    private static SSLContext getSSLContext(boolean isDeceive, File creFile, String crePwd) throws KeyManagementException, NoSuchAlgorithmException, KeyStoreException, CertificateException, FileNotFoundException, IOException {
+    private static SSLContext getSSLContext(boolean isDeceive, File creFile, String crePwd) throws GeneralSecurityException, IOException {
 
         SSLContext sslContext = null;
 
         if (isDeceive) {
-            sslContext = SSLContext.getInstance("SSLv3");
-            // 实现一个X509TrustManager接口，用于绕过验证，不用修改里面的方法
-            X509TrustManager x509TrustManager = new X509TrustManager() {
-                @Override
-                public X509Certificate[] getAcceptedIssuers() {
-                    return null;
-                }
-                @Override
-                public void checkServerTrusted(X509Certificate[] chain, String authType) throws CertificateException {
-                }
-                @Override
-                public void checkClientTrusted(X509Certificate[] chain, String authType) throws CertificateException {
-                }
-            };
-            sslContext.init(null, new TrustManager[] {x509TrustManager}, null);
+            sslContext = HttpSslContexts.trustAll();
         } else {
             if (null != creFile && creFile.length() > 0) {
                 if (null != crePwd) {
-                    KeyStore keyStore = KeyStore.getInstance(KeyStore.getDefaultType());
-                    keyStore.load(new FileInputStream(creFile), crePwd.toCharArray());
-                    sslContext = SSLContexts.custom().loadTrustMaterial(keyStore, new TrustSelfSignedStrategy()).build();
+                    sslContext = HttpSslContexts.forKeyStore(creFile, crePwd);
                 } else {
                     throw new SSLHandshakeException("整数密码为空");
                 }
@@ -278,22 +287,7 @@ public class HttpRequestUtils {
      */
     public static String httpPost(String url, Map<String, Object> headers, Map<String, Object> params, Integer timeOut, boolean isStream, HttpClientContext clientContext) throws UnsupportedEncodingException {
 
-        // 创建post请求
-        HttpPost httpPost = new HttpPost(url);
-
-        // 添加请求头信息
-        if (null != headers) {
-            for (Map.Entry<String, Object> entry : headers.entrySet()) {
-                httpPost.addHeader(entry.getKey(), entry.getValue().toString());
-            }
-        }
-
-        // 添加请求参数信息
-        if (null != params) {
-            httpPost.setEntity(new UrlEncodedFormEntity(covertParams2NVPS(params), ENCODING));
-        }
-
-        return getResult(httpPost, timeOut, isStream, clientContext);
+        return getResult(buildHttpPost(url, headers, params), timeOut, isStream, clientContext);
 
     }
 
@@ -309,15 +303,7 @@ public class HttpRequestUtils {
      */
     public static String httpPost(String url, Map<String, Object> params, Integer timeOut, HttpClientContext clientContext) throws UnsupportedEncodingException {
 
-        // 创建post请求
-        HttpPost httpPost = new HttpPost(url);
-
-        // 添加请求参数信息
-        if (null != params) {
-            httpPost.setEntity(new UrlEncodedFormEntity(covertParams2NVPS(params), ENCODING));
-        }
-
-        return getResult(httpPost, timeOut, true, clientContext);
+        return getResult(buildHttpPost(url, null, params), timeOut, true, clientContext);
 
     }
 
@@ -335,22 +321,7 @@ public class HttpRequestUtils {
      */
     public static String httpPost(String url, JSONObject headers, JSONObject params, Integer timeOut, boolean isStream, HttpClientContext clientContext) throws UnsupportedEncodingException {
 
-        // 创建post请求
-        HttpPost httpPost = new HttpPost(url);
-
-        // 添加请求头信息
-        if (null != headers) {
-            for (Map.Entry<String, Object> entry : headers.entrySet()) {
-                httpPost.addHeader(entry.getKey(), entry.getValue().toString());
-            }
-        }
-
-        // 添加请求参数信息
-        if (null != params) {
-            httpPost.setEntity(new UrlEncodedFormEntity(covertParams2NVPS(params), ENCODING));
-        }
-
-        return getResult(httpPost, timeOut, isStream, clientContext);
+        return getResult(buildHttpPost(url, headers, params), timeOut, isStream, clientContext);
 
     }
 
@@ -366,20 +337,13 @@ public class HttpRequestUtils {
      */
     public static String httpPost(String url, JSONObject params, Integer timeOut, HttpClientContext clientContext) throws UnsupportedEncodingException {
 
-        // 创建post请求
-        HttpPost httpPost = new HttpPost(url);
-
-        // 添加请求参数信息
-        if (null != params) {
-            httpPost.setEntity(new UrlEncodedFormEntity(covertParams2NVPS(params), ENCODING));
-        }
-
-        return getResult(httpPost, timeOut, true, clientContext);
+        return getResult(buildHttpPost(url, null, params), timeOut, true, clientContext);
 
     }
 
     /**
      * post请求 请求体方式,支持SSL
+     * 	请求体先完整序列化, 带 Content-Length 发送; 大集合或大对象使用 {@link #httpPostByJsonEntity(String, Map, Object, Integer, boolean, HttpClientContext)}
      *
      * @param url 请求地址
      * @param headers 请求头信息
@@ -392,23 +356,7 @@ public class HttpRequestUtils {
      */
     public static String httpPostByRequestBody(String url, Map<String, Object> headers, Map<String, Object> params, Integer timeOut, boolean isStream, HttpClientContext clientContext) throws UnsupportedEncodingException {
 
-        // 创建post请求
-        HttpPost httpPost = new HttpPost(url);
-
-        // 添加请求头信息
-        if (null != headers) {
-            for (Map.Entry<String, Object> entry : headers.entrySet()) {
-                httpPost.addHeader(entry.getKey(), entry.getValue().toString());
-            }
-        }
-
-        // 添加请求体信息
-        StringEntity stringEntity = new StringEntity(JSONObject.toJSONString(params), CONTENT_TYPE_APPLICATION_JSON);
-        stringEntity.setContentEncoding(ENCODING);
-        stringEntity.setContentType(CONTENT_TYPE_APPLICATION_JSON);
-        httpPost.setEntity(stringEntity);
-
-        return getResult(httpPost, timeOut, isStream, clientContext);
+        return getResult(buildHttpPostByRequestBody(url, headers, params), timeOut, isStream, clientContext);
 
     }
 
@@ -426,24 +374,7 @@ public class HttpRequestUtils {
      */
     public static String httpGet(String url, Map<String, Object> headers, Map<String, Object> params, Integer timeOut, boolean isStream, HttpClientContext clientContext) throws URISyntaxException {
 
-        // 构建url
-        URIBuilder uriBuilder = new URIBuilder(url);
-        // 添加请求参数信息
-        if (null != params) {
-            uriBuilder.setParameters(covertParams2NVPS(params));
-        }
-
-        // 创建post请求
-        HttpGet httpGet = new HttpGet(uriBuilder.build());
-
-        // 添加请求头信息
-        if (null != headers) {
-            for (Map.Entry<String, Object> entry : headers.entrySet()) {
-                httpGet.addHeader(entry.getKey(), entry.getValue().toString());
-            }
-        }
-
-        return getResult(httpGet, timeOut, isStream, clientContext);
+        return getGetResult(url, headers, params, timeOut, isStream, clientContext);
 
     }
 
@@ -459,17 +390,7 @@ public class HttpRequestUtils {
      */
     public static String httpGet(String url, Map<String, Object> params, Integer timeOut, HttpClientContext clientContext) throws URISyntaxException {
 
-        // 构建url
-        URIBuilder uriBuilder = new URIBuilder(url);
-        // 添加请求参数信息
-        if (null != params) {
-            uriBuilder.setParameters(covertParams2NVPS(params));
-        }
-
-        // 创建post请求
-        HttpGet httpGet = new HttpGet(uriBuilder.build());
-
-        return getResult(httpGet, timeOut, true, clientContext);
+        return getGetResult(url, null, params, timeOut, true, clientContext);
 
     }
 
@@ -487,24 +408,7 @@ public class HttpRequestUtils {
      */
     public static String httpGet(String url, JSONObject headers, JSONObject params, Integer timeOut, boolean isStream, HttpClientContext clientContext) throws URISyntaxException {
 
-        // 构建url
-        URIBuilder uriBuilder = new URIBuilder(url);
-        // 添加请求参数信息
-        if (null != params) {
-            uriBuilder.setParameters(covertParams2NVPS(params));
-        }
-
-        // 创建post请求
-        HttpGet httpGet = new HttpGet(uriBuilder.build());
-
-        // 添加请求头信息
-        if (null != headers) {
-            for (Map.Entry<String, Object> entry : headers.entrySet()) {
-                httpGet.addHeader(entry.getKey(), entry.getValue().toString());
-            }
-        }
-
-        return getResult(httpGet, timeOut, isStream, clientContext);
+        return getGetResult(url, headers, params, timeOut, isStream, clientContext);
 
     }
 
@@ -520,93 +424,649 @@ public class HttpRequestUtils {
      */
     public static String httpGet(String url, JSONObject params, Integer timeOut, HttpClientContext clientContext) throws URISyntaxException {
 
-        // 构建url
-        URIBuilder uriBuilder = new URIBuilder(url);
-        // 添加请求参数信息
-        if (null != params) {
-            uriBuilder.setParameters(covertParams2NVPS(params));
-        }
+        return getGetResult(url, null, params, timeOut, true, clientContext);
 
-        // 创建post请求
-        HttpGet httpGet = new HttpGet(uriBuilder.build());
+    }
 
-        return getResult(httpGet, timeOut, true, clientContext);
 
+    /**
+     * post请求,响应按JSON直接从流中解析为指定类型,支持SSL
+     *
+     * @param url 请求地址
+     * @param headers 请求头信息
+     * @param params 请求参数
+     * @param timeOut 超时时间(毫秒):从连接池获取连接的时间,请求时间,响应时间
+     * @param clientContext Http请求客户端上下文对象，包含Cookie
+     * @param clazz 响应类型
+     * @return 响应对象, 出错或非200响应为null
+     * @throws UnsupportedEncodingException
+     */
+    public static <T> T httpPost(String url, Map<String, Object> headers, Map<String, Object> params, Integer timeOut, HttpClientContext clientContext, Class<T> clazz) throws UnsupportedEncodingException {
+        return getResult(buildHttpPost(url, headers, params), timeOut, clientContext, HttpStreamHandlers.ofJson(clazz, ENCODING));
     }
 
+    /**
+     * post请求,响应按JSON直接从流中解析为指定泛型类型,支持SSL
+     *
+     * @param url 请求地址
+     * @param headers 请求头信息
+     * @param params 请求参数
+     * @param timeOut 超时时间(毫秒):从连接池获取连接的时间,请求时间,响应时间
+     * @param clientContext Http请求客户端上下文对象，包含Cookie
+     * @param typeReference 响应泛型类型
+     * @return 响应对象, 出错或非200响应为null
+     * @throws UnsupportedEncodingException
+     */
+    public static <T> T httpPost(String url, Map<String, Object> headers, Map<String, Object> params, Integer timeOut, HttpClientContext clientContext, TypeReference<T> typeReference) throws UnsupportedEncodingException {
+        return getResult(buildHttpPost(url, headers, params), timeOut, clientContext, HttpStreamHandlers.ofJson(typeReference, ENCODING));
+    }
 
+    /**
+     * post请求 请求体方式,对象直接序列化到连接的输出流,分块传输,适合大集合或大对象,支持SSL
+     *
+     * @param url 请求地址
+     * @param headers 请求头信息
+     * @param body 请求体对象, 如: 集合、POJO
+     * @param timeOut 超时时间(毫秒):从连接池获取连接的时间,请求时间,响应时间
+     * @param isStream 是否以流的方式获取响应信息
+     * @param clientContext Http请求客户端上下文对象，包含Cookie
+     * @return 响应信息
+     */
+    public static String httpPostByJsonEntity(String url, Map<String, Object> headers, Object body, Integer timeOut, boolean isStream, HttpClientContext clientContext) {
 
-    private static String getResult(HttpRequestBase httpRequest, Integer timeOut, boolean isStream, HttpClientContext clientContext) {
+        return getResult(buildHttpPostByJsonEntity(url, headers, body), timeOut, isStream, clientContext);
 
-        // 响应结果
-        StringBuilder sb = null;
+    }
 
-        CloseableHttpResponse response = null;
+    /**
+     * multipart 文件上传,文件按流发送,内存占用与文件大小无关,支持SSL
+     * 	HTTP/1.1 和 HTTP/2 传输层都边读边发, 不会先缓冲整个请求体; HTTP/2 下按流量控制窗口发送
+     *
+     * @param url 请求地址
+     * @param headers 请求头信息
+     * @param params 普通表单参数
+     * @param parts 文件部分
+     * @param timeOut 超时时间(毫秒):从连接池获取连接的时间,请求时间,响应时间
+     * @param clientContext Http请求客户端上下文对象，包含Cookie
+     * @param listener 上传进度监听器, 可以为null
+     * @return 响应信息
+     */
+    public static String httpUpload(String url, Map<String, Object> headers, Map<String, Object> params, List<HttpUploadPart> parts, Integer timeOut, HttpClientContext clientContext, HttpUploadProgressListener listener) {
 
-        try {
-            // 获取连接客户端
-            CloseableHttpClient httpClient = getHttpClient(timeOut);
-            // 发起请求
-            if (null != clientContext) {
-                response = httpClient.execute(httpRequest, clientContext);
-            } else {
-                response = httpClient.execute(httpRequest);
-            }
+        return getResult(buildHttpUpload(url, headers, params, parts, listener), timeOut, true, clientContext);
 
-            int respCode = response.getStatusLine().getStatusCode();
-            // 如果是重定向
-            if (302 == respCode) {
-                String locationUrl = response.getLastHeader("Location").getValue();
-                return getResult(new HttpPost(locationUrl), timeOut, isStream, clientContext);
-            }
-            // 正确响应
-            if (200 == respCode) {
-                // 获得响应实体
-                HttpEntity entity = response.getEntity();
-                sb = new StringBuilder();
-
-                // 如果是以流的形式获取
-                if (isStream) {
-                    BufferedReader br = new BufferedReader(new InputStreamReader(entity.getContent(), ENCODING));
-                    String len = "";
-                    while ((len = br.readLine()) != null) {
-                        sb.append(len);
-                    }
-                } else {
-                    sb.append(EntityUtils.toString(entity, ENCODING));
-                    if (sb.length() < 1) {
-                        sb.append("-1");
-                    }
-                }
+    }
 
-            }
-        } catch (ConnectionPoolTimeoutException e) {
-            System.err.println("从连接池获取连接超时!!!");
-            e.printStackTrace();
-        } catch (SocketTimeoutException e) {
-            System.err.println("响应超时");
-            e.printStackTrace();
-        } catch (ConnectTimeoutException e) {
-            System.err.println("请求超时");
-            e.printStackTrace();
-        } catch (ClientProtocolException e) {
-            System.err.println("http协议错误");
-            e.printStackTrace();
-        } catch (UnsupportedEncodingException e) {
-            System.err.println("不支持的字符编码");
-            e.printStackTrace();
-        } catch (UnsupportedOperationException e) {
-            System.err.println("不支持的请求操作");
-            e.printStackTrace();
-        } catch (ParseException e) {
-            System.err.println("解析错误");
-            e.printStackTrace();
-        } catch (IOException e) {
-            System.err.println("IO错误");
-            e.printStackTrace();
-        } finally {
-            if (null != response) {
-                try {
+    /**
+     * post请求,请求参数放在请求体中,响应按JSON直接从流中解析为指定类型,支持SSL
+     *
+     * @param url 请求地址
+     * @param headers 请求头信息
+     * @param params 请求参数
+     * @param timeOut 超时时间(毫秒):从连接池获取连接的时间,请求时间,响应时间
+     * @param clientContext Http请求客户端上下文对象，包含Cookie
+     * @param clazz 响应类型
+     * @return 响应对象, 出错或非200响应为null
+     */
+    public static <T> T httpPostByRequestBody(String url, Map<String, Object> headers, Map<String, Object> params, Integer timeOut, HttpClientContext clientContext, Class<T> clazz) {
+        return getResult(buildHttpPostByRequestBody(url, headers, params), timeOut, clientContext, HttpStreamHandlers.ofJson(clazz, ENCODING));
+    }
+
+    /**
+     * post请求,请求参数放在请求体中,响应按JSON直接从流中解析为指定泛型类型,支持SSL
+     *
+     * @param url 请求地址
+     * @param headers 请求头信息
+     * @param params 请求参数
+     * @param timeOut 超时时间(毫秒):从连接池获取连接的时间,请求时间,响应时间
+     * @param clientContext Http请求客户端上下文对象，包含Cookie
+     * @param typeReference 响应泛型类型
+     * @return 响应对象, 出错或非200响应为null
+     */
+    public static <T> T httpPostByRequestBody(String url, Map<String, Object> headers, Map<String, Object> params, Integer timeOut, HttpClientContext clientContext, TypeReference<T> typeReference) {
+        return getResult(buildHttpPostByRequestBody(url, headers, params), timeOut, clientContext, HttpStreamHandlers.ofJson(typeReference, ENCODING));
+    }
+
+    /**
+     * get请求,响应按JSON直接从流中解析为指定类型,支持SSL
+     *
+     * @param url 请求地址
+     * @param headers 请求头信息
+     * @param params 请求参数
+     * @param timeOut 超时时间(毫秒):从连接池获取连接的时间,请求时间,响应时间
+     * @param clientContext Http请求客户端上下文对象，包含Cookie
+     * @param clazz 响应类型
+     * @return 响应对象, 出错或非200响应为null
+     * @throws URISyntaxException
+     */
+    public static <T> T httpGet(String url, Map<String, Object> headers, Map<String, Object> params, Integer timeOut, HttpClientContext clientContext, Class<T> clazz) throws URISyntaxException {
+        return getResult(buildHttpGet(url, headers, params), timeOut, clientContext, HttpStreamHandlers.ofJson(clazz, ENCODING));
+    }
+
+    /**
+     * get请求,响应按JSON直接从流中解析为指定泛型类型,支持SSL
+     *
+     * @param url 请求地址
+     * @param headers 请求头信息
+     * @param params 请求参数
+     * @param timeOut 超时时间(毫秒):从连接池获取连接的时间,请求时间,响应时间
+     * @param clientContext Http请求客户端上下文对象，包含Cookie
+     * @param typeReference 响应泛型类型
+     * @return 响应对象, 出错或非200响应为null
+     * @throws URISyntaxException
+     */
+    public static <T> T httpGet(String url, Map<String, Object> headers, Map<String, Object> params, Integer timeOut, HttpClientContext clientContext, TypeReference<T> typeReference) throws URISyntaxException {
+        return getResult(buildHttpGet(url, headers, params), timeOut, clientContext, HttpStreamHandlers.ofJson(typeReference, ENCODING));
+    }
+
+
+    /**
+     * get请求,响应实体流直接交给处理器,不在内存中缓冲整个响应,支持SSL
+     *
+     * @param url 请求地址
+     * @param headers 请求头信息
+     * @param params 请求参数
+     * @param timeOut 超时时间(毫秒):从连接池获取连接的时间,请求时间,响应时间
+     * @param clientContext Http请求客户端上下文对象，包含Cookie
+     * @param handler 响应流处理器, 常用处理器见 HttpStreamHandlers
+     * @return 处理结果, 非200响应为null
+     * @throws URISyntaxException
+     * @throws IOException
+     */
+    public static <T> T httpGetStream(String url, Map<String, Object> headers, Map<String, Object> params, Integer timeOut, HttpClientContext clientContext, HttpStreamHandler<T> handler) throws URISyntaxException, IOException {
+        return executeRequest(buildHttpGet(url, headers, params), timeOut, clientContext, handler);
+    }
+
+    /**
+     * post请求,响应实体流直接交给处理器,不在内存中缓冲整个响应,支持SSL
+     *
+     * @param url 请求地址
+     * @param headers 请求头信息
+     * @param params 请求参数
+     * @param timeOut 超时时间(毫秒):从连接池获取连接的时间,请求时间,响应时间
+     * @param clientContext Http请求客户端上下文对象，包含Cookie
+     * @param handler 响应流处理器, 常用处理器见 HttpStreamHandlers
+     * @return 处理结果, 非200响应为null
+     * @throws IOException
+     */
+    public static <T> T httpPostStream(String url, Map<String, Object> headers, Map<String, Object> params, Integer timeOut, HttpClientContext clientContext, HttpStreamHandler<T> handler) throws IOException {
+        return executeRequest(buildHttpPost(url, headers, params), timeOut, clientContext, handler);
+    }
+
+    /**
+     * get请求,响应按固定大小的数据块交给消费者,支持SSL
+     *
+     * @param url 请求地址
+     * @param headers 请求头信息
+     * @param params 请求参数
+     * @param timeOut 超时时间(毫秒):从连接池获取连接的时间,请求时间,响应时间
+     * @param clientContext Http请求客户端上下文对象，包含Cookie
+     * @param consumer 数据块消费者
+     * @return 总字节数, 非200响应为-1
+     * @throws URISyntaxException
+     * @throws IOException
+     */
+    public static long httpGetChunks(String url, Map<String, Object> headers, Map<String, Object> params, Integer timeOut, HttpClientContext clientContext, HttpChunkConsumer consumer) throws URISyntaxException, IOException {
+
+        Long total = httpGetStream(url, headers, params, timeOut, clientContext, HttpStreamHandlers.ofChunks(consumer));
+        return null == total ? -1 : total;
+
+    }
+
+    /**
+     * get请求下载文件,通过 FileChannel 以固定大小的缓冲区写入,内存占用与文件大小无关,支持SSL
+     *
+     * @param url 请求地址
+     * @param headers 请求头信息
+     * @param params 请求参数
+     * @param timeOut 超时时间(毫秒):从连接池获取连接的时间,请求时间,响应时间
+     * @param clientContext Http请求客户端上下文对象，包含Cookie
+     * @param outFile 输出文件, 已存在时覆盖, 非200响应不会创建
+     * @return 写入的字节数, 非200响应为-1
+     * @throws URISyntaxException
+     * @throws IOException
+     */
+    public static long httpDownload(String url, Map<String, Object> headers, Map<String, Object> params, Integer timeOut, HttpClientContext clientContext, File outFile) throws URISyntaxException, IOException {
+
+        Long total = httpGetStream(url, headers, params, timeOut, clientContext, HttpStreamHandlers.ofFile(outFile));
+        return null == total ? -1 : total;
+
+    }
+
+    /**
+     * 构建表单方式的post请求
+     *
+     * @param url 请求地址
+     * @param headers 请求头信息
+     * @param params 请求参数
+     * @return post请求
+     * @throws UnsupportedEncodingException
+     */
+    static HttpPost buildHttpPost(String url, Map<String, Object> headers, Map<String, Object> params) throws UnsupportedEncodingException {
+
+        // 创建post请求
+        HttpPost httpPost = new HttpPost(url);
+
+        // 添加请求头信息
+        addHeaders(httpPost, headers);
+
+        // 添加请求参数信息
+        if (null != params) {
+            httpPost.setEntity(new UrlEncodedFormEntity(covertParams2NVPS(params), ENCODING));
+        }
+
+        return httpPost;
+
+    }
+
+    /**
+     * 构建请求体方式的post请求
+     *
+     * @param url 请求地址
+     * @param headers 请求头信息
+     * @param params 请求参数
+     * @return post请求
+     */
+    static HttpPost buildHttpPostByRequestBody(String url, Map<String, Object> headers, Map<String, Object> params) {
+
+        // 创建post请求
+        HttpPost httpPost = new HttpPost(url);
+
+        // 添加请求头信息
+        addHeaders(httpPost, headers);
+
+        // 添加请求体信息
+        StringEntity stringEntity = new StringEntity(JSONObject.toJSONString(params), ENCODING);
+        stringEntity.setContentType(CONTENT_TYPE_APPLICATION_JSON);
+        httpPost.setEntity(stringEntity);
+
+        return httpPost;
+
+    }
+
+    /**
+     * 构建流式JSON请求体的post请求
+     *
+     * @param url 请求地址
+     * @param headers 请求头信息
+     * @param body 请求体对象
+     * @return post请求
+     */
+    static HttpPost buildHttpPostByJsonEntity(String url, Map<String, Object> headers, Object body) {
+
+        // 创建post请求
+        HttpPost httpPost = new HttpPost(url);
+
+        // 添加请求头信息
+        addHeaders(httpPost, headers);
+
+        // 添加请求体信息, 发送时才序列化
+        httpPost.setEntity(new JsonEntity(body, Charset.forName(ENCODING)));
+
+        return httpPost;
+
+    }
+
+    /**
+     * 构建 multipart 上传的post请求
+     * 	所有部分长度已知时带 Content-Length 发送, 否则分块传输
+     *
+     * @param url 请求地址
+     * @param headers 请求头信息
+     * @param params 普通表单参数
+     * @param parts 文件部分
+     * @param listener 上传进度监听器, 可以为null
+     * @return post请求
+     */
+    static HttpPost buildHttpUpload(String url, Map<String, Object> headers, Map<String, Object> params, List<HttpUploadPart> parts, HttpUploadProgressListener listener) {
+
+        // 创建post请求
+        HttpPost httpPost = new HttpPost(url);
+
+        // 添加请求头信息
+        addHeaders(httpPost, headers);
+
+        // 添加请求体信息, 字段名和文件名按UTF-8编码
+        Charset charset = Charset.forName(ENCODING);
+        MultipartEntityBuilder builder = MultipartEntityBuilder.create()
+                .setMode(HttpMultipartMode.RFC6532)
+                .setCharset(charset);
+        if (null != params) {
+            ContentType textType = ContentType.create("text/plain", charset);
+            for (Map.Entry<String, Object> param : params.entrySet()) {
+                builder.addTextBody(param.getKey(), String.valueOf(param.getValue()), textType);
+            }
+        }
+        if (null != parts) {
+            for (HttpUploadPart part : parts) {
+                builder.addPart(part.getName(), part.getBody());
+            }
+        }
+        HttpEntity entity = builder.build();
+        httpPost.setEntity(null == listener ? entity : new ProgressHttpEntity(entity, listener));
+
+        return httpPost;
+
+    }
+
+    /**
+     * 构建get请求
+     *
+     * @param url 请求地址
+     * @param headers 请求头信息
+     * @param params 请求参数
+     * @return get请求
+     * @throws URISyntaxException
+     */
+    static HttpGet buildHttpGet(String url, Map<String, Object> headers, Map<String, Object> params) throws URISyntaxException {
+
+        // 构建url
+        URIBuilder uriBuilder = new URIBuilder(url);
+        // 添加请求参数信息
+        if (null != params) {
+            uriBuilder.setParameters(covertParams2NVPS(params));
+        }
+
+        // 创建get请求
+        HttpGet httpGet = new HttpGet(uriBuilder.build());
+
+        // 添加请求头信息
+        addHeaders(httpGet, headers);
+
+        return httpGet;
+
+    }
+
+    /**
+     * 添加请求头信息
+     *
+     * @param httpRequest 请求对象
+     * @param headers 请求头信息
+     */
+    static void addHeaders(HttpRequestBase httpRequest, Map<String, Object> headers) {
+
+        if (null != headers) {
+            for (Map.Entry<String, Object> entry : headers.entrySet()) {
+                httpRequest.addHeader(entry.getKey(), entry.getValue().toString());
+            }
+        }
+
+    }
+
+    static String getResult(HttpRequestBase httpRequest, Integer timeOut, boolean isStream, HttpClientContext clientContext) {
+        return getResult(() -> executeRequest(httpRequest, timeOut, isStream, clientContext), RESULT);
+    }
+
+    /**
+     * 发起请求并把200响应的实体流交给处理器, 出错返回null
+     *
+     * @param httpRequest 请求对象
+     * @param timeOut 超时时间(毫秒):从连接池获取连接的时间,请求时间,响应时间
+     * @param clientContext Http请求客户端上下文对象，包含Cookie
+     * @param handler 响应流处理器
+     * @return 处理结果, 出错或非200响应为null
+     */
+    static <T> T getResult(HttpRequestBase httpRequest, Integer timeOut, HttpClientContext clientContext, HttpStreamHandler<T> handler) {
+        return getResult(() -> executeRequest(httpRequest, timeOut, clientContext, handler), null);
+    }
+
+    /**
+     * get请求的响应, 开启了响应缓存时先查缓存, 开启了请求合并时相同的并发请求只发出一次
+     *
+     * @param url 请求地址
+     * @param headers 请求头信息
+     * @param params 请求参数
+     * @param timeOut 超时时间(毫秒):从连接池获取连接的时间,请求时间,响应时间
+     * @param isStream 是否以流的方式获取响应信息
+     * @param clientContext Http请求客户端上下文对象，包含Cookie
+     * @return 响应信息
+     * @throws URISyntaxException
+     */
+    private static String getGetResult(String url, Map<String, Object> headers, Map<String, Object> params, Integer timeOut, boolean isStream, HttpClientContext clientContext) throws URISyntaxException {
+
+        HttpGet httpGet = buildHttpGet(url, headers, params);
+        // 带上下文的请求可能携带各自的Cookie, 不参与合并; 请求头中的凭证在合并键中区分
+        if (!HttpRequestCoalescer.isEnabled() || null != clientContext) {
+            return getGetResult(httpGet, url, params, timeOut, isStream, clientContext);
+        }
+
+        String coalesceKey = HttpRequestCoalescer.coalesceKey(httpGet.getMethod(), url, headers, params);
+        return HttpRequestCoalescer.execute(coalesceKey, () -> getGetResult(httpGet, url, params, timeOut, isStream, null));
+
+    }
+
+    /**
+     * get请求的响应, 开启了响应缓存时先查缓存
+     *
+     * @param httpGet get请求
+     * @param url 请求地址
+     * @param params 请求参数
+     * @param timeOut 超时时间(毫秒):从连接池获取连接的时间,请求时间,响应时间
+     * @param isStream 是否以流的方式获取响应信息
+     * @param clientContext Http请求客户端上下文对象，包含Cookie
+     * @return 响应信息
+     */
+    private static String getGetResult(HttpGet httpGet, String url, Map<String, Object> params, Integer timeOut, boolean isStream, HttpClientContext clientContext) {
+
+        // 缓存在调用方之间共享, 可能因人而异的请求不使用缓存
+        if (!HttpResponseCache.isEnabled() || !HttpResponseCache.isCacheable(httpGet, clientContext)) {
+            return getResult(httpGet, timeOut, isStream, clientContext);
+        }
+
+        String cacheKey = HttpResponseCache.cacheKey(url, params);
+        return getResult(() -> executeCachedGet(httpGet, cacheKey, timeOut, isStream, clientContext), RESULT);
+
+    }
+
+    /**
+     * 执行请求, 统一处理异常
+     *
+     * @param call 请求调用
+     * @param errorResult 出错时的返回值
+     * @return 响应信息
+     */
+    private static <T> T getResult(RequestCall<T> call, T errorResult) {
+
+        try {
+            return call.call();
+        } catch (HttpRequestRejectedException e) {
+            System.err.println(e.getMessage());
+        } catch (ConnectionPoolTimeoutException e) {
+            System.err.println("从连接池获取连接超时!!!");
+            e.printStackTrace();
+        } catch (SocketTimeoutException e) {
+            System.err.println("响应超时");
+            e.printStackTrace();
+        } catch (ConnectTimeoutException e) {
+            System.err.println("请求超时");
+            e.printStackTrace();
+        } catch (ClientProtocolException e) {
+            System.err.println("http协议错误");
+            e.printStackTrace();
+        } catch (UnsupportedEncodingException e) {
+            System.err.println("不支持的字符编码");
+            e.printStackTrace();
+        } catch (UnsupportedOperationException e) {
+            System.err.println("不支持的请求操作");
+            e.printStackTrace();
+        } catch (ParseException e) {
+            System.err.println("解析错误");
+            e.printStackTrace();
+        } catch (JSONException e) {
+            System.err.println("JSON解析错误");
+            e.printStackTrace();
+        } catch (IOException e) {
+            System.err.println("IO错误");
+            e.printStackTrace();
+        }
+
+        return errorResult;
+
+    }
+
+    /**
+     * 发起请求并读取响应信息, 异常直接抛出由调用方处理
+     *
+     * @param httpRequest 请求对象
+     * @param timeOut 超时时间(毫秒):从连接池获取连接的时间,请求时间,响应时间
+     * @param isStream 是否以流的方式获取响应信息
+     * @param clientContext Http请求客户端上下文对象，包含Cookie
+     * @return 响应信息, 非200响应为"-1"
+     * @throws IOException
+     */
+    static String executeRequest(HttpRequestBase httpRequest, Integer timeOut, boolean isStream, HttpClientContext clientContext) throws IOException {
+
+        String result = executeForEntity(httpRequest, timeOut, clientContext, entity -> readString(entity, isStream));
+        return toResult(result);
+
+    }
+
+    /**
+     * 使用响应缓存发起get请求: 缓存未过期直接返回, 已过期时带校验头请求, 304 继续使用缓存
+     *
+     * @param httpGet get请求
+     * @param cacheKey 缓存键
+     * @param timeOut 超时时间(毫秒):从连接池获取连接的时间,请求时间,响应时间
+     * @param isStream 是否以流的方式获取响应信息
+     * @param clientContext Http请求客户端上下文对象，包含Cookie
+     * @return 响应信息, 非200/304响应为"-1"
+     * @throws IOException
+     */
+    private static String executeCachedGet(HttpGet httpGet, String cacheKey, Integer timeOut, boolean isStream, HttpClientContext clientContext) throws IOException {
+
+        HttpResponseCache.CacheEntry cacheEntry = HttpResponseCache.get(cacheKey);
+        if (null != cacheEntry && cacheEntry.isFresh()) {
+            HttpResponseCache.recordHit();
+            return toResult(cacheEntry.getBody());
+        }
+        HttpResponseCache.recordMiss();
+
+        // 带上校验头, 内容没有变化时服务端返回304
+        if (null != cacheEntry) {
+            if (null != cacheEntry.getEtag()) {
+                httpGet.setHeader("If-None-Match", cacheEntry.getEtag());
+            }
+            if (null != cacheEntry.getLastModified()) {
+                httpGet.setHeader("If-Modified-Since", cacheEntry.getLastModified());
+            }
+        }
+
+        String result = executeForResponse(httpGet, timeOut, clientContext, response -> {
+            int respCode = response.getStatusLine().getStatusCode();
+            if (304 == respCode && null != cacheEntry) {
+                EntityUtils.consumeQuietly(response.getEntity());
+                HttpResponseCache.refresh(cacheKey, cacheEntry, response);
+                return cacheEntry.getBody();
+            }
+            if (200 == respCode) {
+                HttpEntity entity = response.getEntity();
+                String body = readString(null == entity ? EMPTY_ENTITY : entity, isStream);
+                HttpResponseCache.store(cacheKey, response, body);
+                return body;
+            }
+            EntityUtils.consumeQuietly(response.getEntity());
+            return null;
+        });
+
+        return toResult(result);
+
+    }
+
+    /**
+     * 发起请求并把200响应的实体流交给处理器, 实体流在处理器返回后关闭
+     *
+     * @param httpRequest 请求对象
+     * @param timeOut 超时时间(毫秒):从连接池获取连接的时间,请求时间,响应时间
+     * @param clientContext Http请求客户端上下文对象，包含Cookie
+     * @param handler 响应流处理器
+     * @return 处理结果, 非200响应为null
+     * @throws IOException
+     */
+    static <T> T executeRequest(HttpRequestBase httpRequest, Integer timeOut, HttpClientContext clientContext, HttpStreamHandler<T> handler) throws IOException {
+
+        return executeForEntity(httpRequest, timeOut, clientContext, entity -> {
+            try (InputStream inputStream = entity.getContent()) {
+                return handler.handle(inputStream);
+            }
+        });
+
+    }
+
+    /**
+     * 发起请求并把200响应的实体交给处理器
+     *
+     * @param httpRequest 请求对象
+     * @param timeOut 超时时间(毫秒):从连接池获取连接的时间,请求时间,响应时间
+     * @param clientContext Http请求客户端上下文对象，包含Cookie
+     * @param entityHandler 响应实体处理器
+     * @return 处理结果, 非200响应为null
+     * @throws IOException
+     */
+    private static <T> T executeForEntity(HttpRequestBase httpRequest, Integer timeOut, HttpClientContext clientContext, EntityHandler<T> entityHandler) throws IOException {
+
+        return executeForResponse(httpRequest, timeOut, clientContext, response -> {
+            // 正确响应
+            if (200 == response.getStatusLine().getStatusCode()) {
+                // 获得响应实体
+                HttpEntity entity = response.getEntity();
+                return entityHandler.handle(null == entity ? EMPTY_ENTITY : entity);
+            }
+            // 读完其它响应的实体, 使连接可以被复用
+            EntityUtils.consumeQuietly(response.getEntity());
+            return null;
+        });
+
+    }
+
+    /**
+     * 发起请求, 302 时跟随跳转, 其余响应交给处理器
+     *
+     * @param httpRequest 请求对象
+     * @param timeOut 超时时间(毫秒):从连接池获取连接的时间,请求时间,响应时间
+     * @param clientContext Http请求客户端上下文对象，包含Cookie
+     * @param responseHandler 响应处理器, 需要自行读完或丢弃响应实体
+     * @return 处理结果
+     * @throws IOException
+     */
+    static <T> T executeForResponse(HttpRequestBase httpRequest, Integer timeOut, HttpClientContext clientContext, ResponseHandler<T> responseHandler) throws IOException {
+
+        // 检查限流和熔断, 被拒绝时请求不会发出
+        HttpCircuitBreaker.Permit circuitPermit = HttpTrafficControl.acquire(httpRequest);
+        CloseableHttpResponse response = null;
+        boolean failed = false;
+        long start = System.nanoTime();
+
+        try {
+            // 超时时间设置到请求自身
+            httpRequest.setConfig(HttpClientRegistry.getRequestConfig(timeOut));
+            // 开启了请求体压缩时按阈值压缩
+            HttpCompression.compress(httpRequest);
+            // 通过当前传输层发起请求
+            response = HttpTransports.getTransport().execute(httpRequest, clientContext);
+
+            int respCode = response.getStatusLine().getStatusCode();
+            HttpClientMetrics.recordStatusCode(respCode);
+            failed = respCode >= 500;
+            // 如果是重定向
+            if (302 == respCode) {
+                String locationUrl = response.getLastHeader("Location").getValue();
+                EntityUtils.consumeQuietly(response.getEntity());
+                return executeForResponse(new HttpPost(locationUrl), timeOut, clientContext, responseHandler);
+            }
+
+            return responseHandler.handle(response);
+        } catch (IOException | RuntimeException e) {
+            HttpClientMetrics.recordFailure();
+            failed = e instanceof IOException;
+            throw e;
+        } finally {
+            long nanos = System.nanoTime() - start;
+            HttpClientMetrics.recordRequest(nanos);
+            if (null != circuitPermit) {
+                circuitPermit.record(failed, nanos);
+            }
+            if (null != response) {
+                try {
                     response.close();
                 } catch (IOException e) {
                     System.err.println("关闭响应连接出错");
@@ -616,7 +1076,63 @@ public class HttpRequestUtils {
 
         }
 
-        return sb == null ? RESULT : ("".equals(sb.toString().trim()) ? "-1" : sb.toString());
+    }
+
+    /**
+     * 读取响应实体为字符串
+     *
+     * @param entity 响应实体
+     * @param isStream 是否以流的方式获取响应信息
+     * @return 响应信息
+     * @throws IOException
+     */
+    private static String readString(HttpEntity entity, boolean isStream) throws IOException {
+
+        // 如果是以流的形式获取
+        if (isStream) {
+            try (InputStream inputStream = entity.getContent()) {
+                return STREAM_STRING_HANDLER.handle(inputStream);
+            }
+        }
+
+        return EntityUtils.toString(entity, ENCODING);
+
+    }
+
+    /**
+     * 转换为对外的响应信息, 没有响应或响应为空时为"-1"
+     *
+     * @param result 响应信息
+     * @return 响应信息
+     */
+    private static String toResult(String result) {
+        return null == result ? RESULT : ("".equals(result.trim()) ? "-1" : result);
+    }
+
+    /**
+     * 请求调用
+     */
+    private interface RequestCall<T> {
+
+        T call() throws IOException;
+
+    }
+
+    /**
+     * 响应实体处理器
+     */
+    private interface EntityHandler<T> {
+
+        T handle(HttpEntity entity) throws IOException;
+
+    }
+
+    /**
+     * 响应处理器
+     */
+    interface ResponseHandler<T> {
+
+        T handle(HttpResponse response) throws IOException;
 
     }
 
@@ -640,7 +1156,7 @@ public class HttpRequestUtils {
     public static void main(String[] args) throws Exception {
 
         HttpClientContext clientContext = HttpClientContext.create();
-        CookieStore cookieStore = new BasicCookieStore();
+        CookieStore cookieStore = new ConcurrentCookieStore();
         clientContext.setCookieStore(cookieStore);
 
         /** 登录 */
@@ -652,4 +1168,4 @@ public class HttpRequestUtils {
 
     }
 
-}
\ No newline at end of file
+}
\ No newline at end of file
@@ -0,0 +1,409 @@
+package com.lynchj.utils.socket;
+
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.http.Header;
+import org.apache.http.HeaderElement;
+import org.apache.http.HttpRequest;
+import org.apache.http.HttpResponse;
+import org.apache.http.client.protocol.HttpClientContext;
+import org.apache.http.client.utils.DateUtils;
+
+import com.lynchj.enums.ErrorStatusEnum;
+import com.lynchj.exception.LynchjException;
+
+/**
+ * get请求的响应缓存, 默认关闭
+ * 	按 url + 排序后的请求参数缓存200响应, 遵循 Cache-Control / Expires,
+ * 	缓存在所有调用方之间共享: 带上下文、Cookie 或 Authorization 的请求不使用缓存, private 的响应不缓存,
+ * 	缓存键不含请求头, 带 Vary 的响应(Accept-Encoding 除外, 缓存的是解压后的内容)不缓存,
+ * 	过期后带 If-None-Match / If-Modified-Since 重新校验, 304 时继续使用缓存,
+ * 	按条数做 LRU 淘汰, 没有缓存头的响应使用默认有效期
+ *
+ * @author 大漠知秋
+ */
+public class HttpResponseCache {
+
+    public HttpResponseCache() {
+        throw new LynchjException(ErrorStatusEnum.CREATE_UTILS_ENTITY_ERROR);
+    }
+
+    /** 默认最大缓存条数 */
+    public static final int DEFAULT_MAX_ENTRIES = 1000;
+
+    /** 默认单条缓存最大字符数 */
+    public static final int DEFAULT_MAX_ENTRY_SIZE = 1024 * 1024;
+
+    /** 是否开启 */
+    private static volatile boolean enabled = false;
+
+    /** 最大缓存条数 */
+    private static volatile int maxEntries = DEFAULT_MAX_ENTRIES;
+
+    /** 单条缓存最大字符数, 超过的响应不缓存 */
+    private static volatile int maxEntrySize = DEFAULT_MAX_ENTRY_SIZE;
+
+    /** 响应没有缓存头时的有效期(毫秒) */
+    private static volatile long defaultTtlMillis = 0;
+
+    /** 按访问顺序排列的缓存, 超过最大条数时淘汰最久未访问的 */
+    private static final Map<String, CacheEntry> CACHE = new LinkedHashMap<String, CacheEntry>(16, 0.75f, true) {
+
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, CacheEntry> eldest) {
+            boolean remove = size() > maxEntries;
+            if (remove) {
+                EVICTION_COUNT.increment();
+            }
+            return remove;
+        }
+
+    };
+
+    /** 命中次数 */
+    private static final LongAdder HIT_COUNT = new LongAdder();
+
+    /** 未命中次数 */
+    private static final LongAdder MISS_COUNT = new LongAdder();
+
+    /** 重新校验后继续使用缓存的次数 */
+    private static final LongAdder REVALIDATED_COUNT = new LongAdder();
+
+    /** 淘汰次数 */
+    private static final LongAdder EVICTION_COUNT = new LongAdder();
+
+    /**
+     * 开启缓存
+     *
+     * @param maxEntries 最大缓存条数
+     * @param defaultTtlMillis 响应没有 Cache-Control / Expires 时的有效期(毫秒), 0 表示每次都重新校验
+     */
+    public static void enable(int maxEntries, long defaultTtlMillis) {
+
+        if (maxEntries < 1 || defaultTtlMillis < 0) {
+            throw new LynchjException(ErrorStatusEnum.NULL_VALUE_ERROR);
+        }
+        HttpResponseCache.maxEntries = maxEntries;
+        HttpResponseCache.defaultTtlMillis = defaultTtlMillis;
+        enabled = true;
+
+    }
+
+    /**
+     * 关闭缓存并清空
+     */
+    public static void disable() {
+        enabled = false;
+        clear();
+    }
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 设置单条缓存最大字符数, 超过的响应不缓存
+     *
+     * @param maxEntrySize 最大字符数
+     */
+    public static void setMaxEntrySize(int maxEntrySize) {
+        HttpResponseCache.maxEntrySize = maxEntrySize;
+    }
+
+    /**
+     * 清空缓存, 计数不受影响
+     */
+    public static void clear() {
+
+        synchronized (CACHE) {
+            CACHE.clear();
+        }
+
+    }
+
+    /**
+     * 当前缓存条数
+     *
+     * @return 条数
+     */
+    public static int size() {
+
+        synchronized (CACHE) {
+            return CACHE.size();
+        }
+
+    }
+
+    public static long getHitCount() {
+        return HIT_COUNT.sum();
+    }
+
+    public static long getMissCount() {
+        return MISS_COUNT.sum();
+    }
+
+    public static long getRevalidatedCount() {
+        return REVALIDATED_COUNT.sum();
+    }
+
+    public static long getEvictionCount() {
+        return EVICTION_COUNT.sum();
+    }
+
+    /**
+     * 生成缓存键: url + 按参数名排序的参数
+     *
+     * @param url 请求地址
+     * @param params 请求参数
+     * @return 缓存键
+     */
+    static String cacheKey(String url, Map<String, Object> params) {
+
+        if (null == params || params.isEmpty()) {
+            return url;
+        }
+        StringBuilder sb = new StringBuilder(url).append('\n');
+        for (Map.Entry<String, Object> entry : new TreeMap<>(params).entrySet()) {
+            sb.append(entry.getKey()).append('=').append(entry.getValue()).append('&');
+        }
+
+        return sb.toString();
+
+    }
+
+    /**
+     * 请求是否可以使用共享缓存: 带上下文、Cookie 或 Authorization 的请求可能得到因人而异的响应, 不使用缓存
+     *
+     * @param request 请求
+     * @param clientContext Http请求客户端上下文对象
+     * @return true: 可以使用
+     */
+    static boolean isCacheable(HttpRequest request, HttpClientContext clientContext) {
+        return null == clientContext && !request.containsHeader("Authorization") && !request.containsHeader("Cookie");
+    }
+
+    /**
+     * 获取缓存, 包括已过期的, 由调用方判断是否需要重新校验
+     *
+     * @param key 缓存键
+     * @return 缓存, 没有时为null
+     */
+    static CacheEntry get(String key) {
+
+        synchronized (CACHE) {
+            return CACHE.get(key);
+        }
+
+    }
+
+    static void recordHit() {
+        HIT_COUNT.increment();
+    }
+
+    static void recordMiss() {
+        MISS_COUNT.increment();
+    }
+
+    /**
+     * 按响应头缓存200响应, no-store、private 或带 Vary 的响应不缓存
+     *
+     * @param key 缓存键
+     * @param response 响应
+     * @param body 响应信息
+     */
+    static void store(String key, HttpResponse response, String body) {
+
+        if (!enabled || null == body || body.length() > maxEntrySize) {
+            return;
+        }
+        if (varies(response)) {
+            return;
+        }
+        long ttl = freshnessMillis(response);
+        if (ttl < 0) {
+            return;
+        }
+
+        Header etag = response.getFirstHeader("ETag");
+        Header lastModified = response.getFirstHeader("Last-Modified");
+        // 已过期又不能重新校验的响应没有缓存价值
+        if (ttl == 0 && null == etag && null == lastModified) {
+            return;
+        }
+        CacheEntry entry = new CacheEntry(body, null == etag ? null : etag.getValue(),
+                null == lastModified ? null : lastModified.getValue(), System.currentTimeMillis() + ttl);
+        synchronized (CACHE) {
+            CACHE.put(key, entry);
+        }
+
+    }
+
+    /**
+     * 304 响应后刷新缓存有效期
+     *
+     * @param key 缓存键
+     * @param entry 原缓存
+     * @param response 304 响应
+     */
+    static void refresh(String key, CacheEntry entry, HttpResponse response) {
+
+        REVALIDATED_COUNT.increment();
+        long ttl = varies(response) ? -1 : freshnessMillis(response);
+        if (ttl < 0) {
+            synchronized (CACHE) {
+                CACHE.remove(key);
+            }
+            return;
+        }
+
+        Header etag = response.getFirstHeader("ETag");
+        CacheEntry refreshed = new CacheEntry(entry.getBody(), null == etag ? entry.getEtag() : etag.getValue(),
+                entry.getLastModified(), System.currentTimeMillis() + ttl);
+        synchronized (CACHE) {
+            CACHE.put(key, refreshed);
+        }
+
+    }
+
+    /**
+     * 响应是否随请求头变化, 缓存键不含请求头, 这样的响应不能共享
+     * 	Accept-Encoding 除外: HttpClient 已解压, 缓存的内容与编码无关
+     *
+     * @param response 响应
+     * @return true: 随请求头变化
+     */
+    private static boolean varies(HttpResponse response) {
+
+        for (Header header : response.getHeaders("Vary")) {
+            for (HeaderElement element : header.getElements()) {
+                if (!"accept-encoding".equalsIgnoreCase(element.getName().trim())) {
+                    return true;
+                }
+            }
+        }
+        return false;
+
+    }
+
+    /**
+     * 根据 Cache-Control 和 Expires 计算有效期
+     * 	先读完所有 Cache-Control 指令再判断: no-store、private 不缓存, no-cache 每次重新校验,
+     * 	共享缓存中 s-maxage 优先于 max-age
+     *
+     * @param response 响应
+     * @return 有效期(毫秒), -1 表示不能缓存
+     */
+    private static long freshnessMillis(HttpResponse response) {
+
+        boolean noCache = false;
+        long maxAge = -1;
+        long sharedMaxAge = -1;
+        for (Header header : response.getHeaders("Cache-Control")) {
+            for (HeaderElement element : header.getElements()) {
+                String name = element.getName().toLowerCase();
+                if ("no-store".equals(name) || "private".equals(name)) {
+                    return -1;
+                }
+                if ("no-cache".equals(name)) {
+                    noCache = true;
+                } else if ("max-age".equals(name)) {
+                    maxAge = parseSeconds(element.getValue());
+                } else if ("s-maxage".equals(name)) {
+                    sharedMaxAge = parseSeconds(element.getValue());
+                }
+            }
+        }
+        if (noCache) {
+            return 0;
+        }
+        if (sharedMaxAge >= 0) {
+            return sharedMaxAge;
+        }
+        if (maxAge >= 0) {
+            return maxAge;
+        }
+
+        Header expires = response.getFirstHeader("Expires");
+        if (null != expires) {
+            Date expiresDate = DateUtils.parseDate(expires.getValue());
+            if (null == expiresDate) {
+                return 0;
+            }
+            Header dateHeader = response.getFirstHeader("Date");
+            Date date = null == dateHeader ? null : DateUtils.parseDate(dateHeader.getValue());
+            long now = null == date ? System.currentTimeMillis() : date.getTime();
+            return Math.max(0, expiresDate.getTime() - now);
+        }
+
+        return defaultTtlMillis;
+
+    }
+
+    /**
+     * 解析秒数, 格式错误按已过期处理
+     *
+     * @param value 秒数
+     * @return 毫秒
+     */
+    private static long parseSeconds(String value) {
+
+        if (null == value) {
+            return 0;
+        }
+        try {
+            return Math.max(0, Long.parseLong(value.trim()) * 1000);
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+
+    }
+
+    /**
+     * 缓存条目, 不可变
+     */
+    static class CacheEntry {
+
+        /** 响应信息 */
+        private final String body;
+
+        /** ETag */
+        private final String etag;
+
+        /** Last-Modified */
+        private final String lastModified;
+
+        /** 过期时间点(毫秒) */
+        private final long expiresAt;
+
+        CacheEntry(String body, String etag, String lastModified, long expiresAt) {
+            this.body = body;
+            this.etag = etag;
+            this.lastModified = lastModified;
+            this.expiresAt = expiresAt;
+        }
+
+        boolean isFresh() {
+            return System.currentTimeMillis() < expiresAt;
+        }
+
+        String getBody() {
+            return body;
+        }
+
+        String getEtag() {
+            return etag;
+        }
+
+        String getLastModified() {
+            return lastModified;
+        }
+
+    }
+
+}
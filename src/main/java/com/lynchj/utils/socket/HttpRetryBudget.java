@@ -0,0 +1,131 @@
+package com.lynchj.utils.socket;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.lynchj.enums.ErrorStatusEnum;
+import com.lynchj.exception.LynchjException;
+
+/**
+ * 全局重试预算, 默认开启
+ * 	每次请求执行(含重试)存入 ratio 次重试额度, 每次重试取出 1 次, 余额最多积累到上限;
+ * 	下游大面积故障时重试数被限制在请求数的固定比例内, 避免重试风暴放大流量
+ *
+ * @author 大漠知秋
+ */
+public class HttpRetryBudget {
+
+    public HttpRetryBudget() {
+        throw new LynchjException(ErrorStatusEnum.CREATE_UTILS_ENTITY_ERROR);
+    }
+
+    /** 默认重试比例 */
+    public static final double DEFAULT_RATIO = 0.2;
+
+    /** 默认余额上限(次) */
+    public static final int DEFAULT_MAX_BALANCE = 10;
+
+    /** 额度的计量单位, 余额以千分之一次存储 */
+    private static final long UNIT = 1000;
+
+    /** 是否开启 */
+    private static volatile boolean enabled = true;
+
+    /** 每次请求存入的额度(千分之一次) */
+    private static volatile long deposit = (long) (DEFAULT_RATIO * UNIT);
+
+    /** 余额上限(千分之一次) */
+    private static volatile long maxBalance = DEFAULT_MAX_BALANCE * UNIT;
+
+    /** 当前余额(千分之一次) */
+    private static final AtomicLong BALANCE = new AtomicLong(DEFAULT_MAX_BALANCE * UNIT);
+
+    /** 因预算不足放弃的重试次数 */
+    private static final LongAdder EXHAUSTED_COUNT = new LongAdder();
+
+    /**
+     * 开启重试预算, 余额重置为上限
+     *
+     * @param ratio 重试数与请求数的比例, 如: 0.2 表示每5次请求允许1次重试
+     * @param maxBalance 余额上限(次), 也是允许的突发重试数
+     */
+    public static synchronized void enable(double ratio, int maxBalance) {
+
+        if (ratio < 0 || maxBalance < 0) {
+            throw new LynchjException(ErrorStatusEnum.NULL_VALUE_ERROR);
+        }
+        deposit = (long) (ratio * UNIT);
+        HttpRetryBudget.maxBalance = maxBalance * UNIT;
+        BALANCE.set(maxBalance * UNIT);
+        enabled = true;
+
+    }
+
+    /**
+     * 关闭重试预算, 重试只受重试策略限制
+     */
+    public static void disable() {
+        enabled = false;
+    }
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 当前可用的重试次数
+     *
+     * @return 次数
+     */
+    public static long getAvailableRetries() {
+        return BALANCE.get() / UNIT;
+    }
+
+    public static long getExhaustedCount() {
+        return EXHAUSTED_COUNT.sum();
+    }
+
+    /**
+     * 每次请求执行时存入额度
+     */
+    static void recordAttempt() {
+
+        if (!enabled) {
+            return;
+        }
+        long limit = maxBalance;
+        long add = deposit;
+        long prev;
+        do {
+            prev = BALANCE.get();
+            if (prev >= limit) {
+                return;
+            }
+        } while (!BALANCE.compareAndSet(prev, Math.min(limit, prev + add)));
+
+    }
+
+    /**
+     * 尝试取出一次重试额度
+     *
+     * @return true: 允许重试
+     */
+    static boolean tryAcquire() {
+
+        if (!enabled) {
+            return true;
+        }
+        long prev;
+        do {
+            prev = BALANCE.get();
+            if (prev < UNIT) {
+                EXHAUSTED_COUNT.increment();
+                return false;
+            }
+        } while (!BALANCE.compareAndSet(prev, prev - UNIT));
+
+        return true;
+
+    }
+
+}
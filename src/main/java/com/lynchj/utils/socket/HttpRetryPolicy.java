@@ -0,0 +1,142 @@
+package com.lynchj.utils.socket;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ThreadLocalRandom;
+
+import com.lynchj.enums.ErrorStatusEnum;
+import com.lynchj.exception.LynchjException;
+
+/**
+ * 重试策略, 不可变
+ * 	两次重试之间按指数退避并加随机抖动: 第n次重试前等待 [0, min(最大间隔, 基础间隔 * 2^(n-1))] 内的随机时间;
+ * 	除IO异常外, 指定的响应码(默认503)也会重试, 响应带 Retry-After 时按其等待, 超过最大间隔则不再重试;
+ * 	所有重试还受全局重试预算 {@link HttpRetryBudget} 限制
+ *
+ * @author 大漠知秋
+ */
+public class HttpRetryPolicy {
+
+    /** 默认最大执行次数(含第一次) */
+    public static final int DEFAULT_MAX_ATTEMPTS = 3;
+
+    /** 默认基础退避间隔(毫秒) */
+    public static final long DEFAULT_BASE_DELAY_MILLIS = 100;
+
+    /** 默认最大退避间隔(毫秒) */
+    public static final long DEFAULT_MAX_DELAY_MILLIS = 2 * 1000;
+
+    /** 默认策略: 最多执行3次, 100ms起指数退避, 最大2s, 503重试 */
+    public static final HttpRetryPolicy DEFAULT = new HttpRetryPolicy(DEFAULT_MAX_ATTEMPTS, DEFAULT_BASE_DELAY_MILLIS, DEFAULT_MAX_DELAY_MILLIS, 503);
+
+    /** 不重试 */
+    public static final HttpRetryPolicy NONE = new HttpRetryPolicy(1, 0, 0);
+
+    /** 最大执行次数(含第一次) */
+    private final int maxAttempts;
+
+    /** 基础退避间隔(毫秒) */
+    private final long baseDelayMillis;
+
+    /** 最大退避间隔(毫秒) */
+    private final long maxDelayMillis;
+
+    /** 需要重试的响应码 */
+    private final Set<Integer> retryStatusCodes;
+
+    /**
+     * @param maxAttempts 最大执行次数(含第一次), 1 表示不重试
+     * @param baseDelayMillis 基础退避间隔(毫秒), 0 表示立即重试
+     * @param maxDelayMillis 最大退避间隔(毫秒), 同时是 Retry-After 允许的最大等待时间
+     * @param retryStatusCodes 需要重试的响应码, 如: 503
+     */
+    public HttpRetryPolicy(int maxAttempts, long baseDelayMillis, long maxDelayMillis, int... retryStatusCodes) {
+
+        if (maxAttempts < 1 || baseDelayMillis < 0 || maxDelayMillis < baseDelayMillis) {
+            throw new LynchjException(ErrorStatusEnum.NULL_VALUE_ERROR);
+        }
+        this.maxAttempts = maxAttempts;
+        this.baseDelayMillis = baseDelayMillis;
+        this.maxDelayMillis = maxDelayMillis;
+        Set<Integer> codes = new TreeSet<>();
+        if (null != retryStatusCodes) {
+            for (int code : retryStatusCodes) {
+                codes.add(code);
+            }
+        }
+        this.retryStatusCodes = Collections.unmodifiableSet(codes);
+
+    }
+
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    public long getBaseDelayMillis() {
+        return baseDelayMillis;
+    }
+
+    public long getMaxDelayMillis() {
+        return maxDelayMillis;
+    }
+
+    public Set<Integer> getRetryStatusCodes() {
+        return retryStatusCodes;
+    }
+
+    /**
+     * 是否重试该响应码
+     *
+     * @param statusCode 响应码
+     * @return true: 重试
+     */
+    boolean isRetryStatus(int statusCode) {
+        return retryStatusCodes.contains(statusCode);
+    }
+
+    /**
+     * 计算第n次重试前的等待时间
+     *
+     * @param retryNumber 第几次重试, 从1开始
+     * @return 等待时间(毫秒)
+     */
+    long backoffMillis(int retryNumber) {
+
+        if (baseDelayMillis == 0) {
+            return 0;
+        }
+        int shift = Math.min(30, Math.max(0, retryNumber - 1));
+        long ceiling = Math.min(maxDelayMillis, baseDelayMillis << shift);
+        return ThreadLocalRandom.current().nextLong(ceiling + 1);
+
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof HttpRetryPolicy)) {
+            return false;
+        }
+        HttpRetryPolicy other = (HttpRetryPolicy) obj;
+        return maxAttempts == other.maxAttempts && baseDelayMillis == other.baseDelayMillis
+                && maxDelayMillis == other.maxDelayMillis && retryStatusCodes.equals(other.retryStatusCodes);
+
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(new Object[] { maxAttempts, baseDelayMillis, maxDelayMillis, retryStatusCodes });
+    }
+
+    @Override
+    public String toString() {
+        return "HttpRetryPolicy [maxAttempts=" + maxAttempts + ", baseDelayMillis=" + baseDelayMillis + ", maxDelayMillis="
+                + maxDelayMillis + ", retryStatusCodes=" + retryStatusCodes + "]";
+    }
+
+}
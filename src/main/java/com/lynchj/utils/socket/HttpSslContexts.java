@@ -0,0 +1,273 @@
+package com.lynchj.utils.socket;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.GeneralSecurityException;
+import java.security.KeyStore;
+import java.security.cert.X509Certificate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLSessionContext;
+import javax.net.ssl.TrustManager;
+import javax.net.ssl.X509TrustManager;
+
+import org.apache.http.conn.ssl.TrustSelfSignedStrategy;
+import org.apache.http.ssl.SSLContexts;
+
+import com.lynchj.enums.ErrorStatusEnum;
+import com.lynchj.exception.LynchjException;
+
+/**
+ * SSL上下文的创建、缓存和会话复用配置
+ * 	只启用 TLSv1.3 和 TLSv1.2, 去掉不安全的加密套件;
+ * 	客户端会话缓存按 主机+端口 保存已协商的会话, 新建连接时复用会话, 省去完整握手的非对称运算和一次往返;
+ * 	证书库方式的上下文按文件缓存, 文件修改时间或大小变化后才重新加载, 重新加载失败时继续使用原来的上下文
+ *
+ * @author 大漠知秋
+ */
+public class HttpSslContexts {
+
+    public HttpSslContexts() {
+        throw new LynchjException(ErrorStatusEnum.CREATE_UTILS_ENTITY_ERROR);
+    }
+
+    /** 默认会话缓存数 */
+    public static final int DEFAULT_SESSION_CACHE_SIZE = 10 * 1000;
+
+    /** 默认会话有效期(秒) */
+    public static final int DEFAULT_SESSION_TIMEOUT_SECONDS = 12 * 60 * 60;
+
+    /** 启用的协议, 按优先级排列 */
+    private static final List<String> PROTOCOLS = Arrays.asList("TLSv1.3", "TLSv1.2");
+
+    /** 不安全的加密套件特征 */
+    private static final String[] WEAK_CIPHER_PATTERNS = { "_NULL_", "_anon_", "_EXPORT_", "_RC4_", "_DES_", "_3DES_", "DES40", "_MD5" };
+
+    /** 会话缓存数 */
+    private static volatile int sessionCacheSize = DEFAULT_SESSION_CACHE_SIZE;
+
+    /** 会话有效期(秒) */
+    private static volatile int sessionTimeoutSeconds = DEFAULT_SESSION_TIMEOUT_SECONDS;
+
+    /** 不校验证书的上下文, 第一次使用时创建 */
+    private static volatile SSLContext trustAllContext;
+
+    /** 按证书库文件缓存的上下文 */
+    private static final ConcurrentMap<String, KeyStoreContext> KEY_STORE_CONTEXTS = new ConcurrentHashMap<>();
+
+    /**
+     * 设置会话缓存, 对已创建的上下文立即生效
+     *
+     * @param cacheSize 缓存的会话数, 0 表示不限制
+     * @param timeoutSeconds 会话有效期(秒), 0 表示不限制
+     */
+    public static synchronized void setSessionCache(int cacheSize, int timeoutSeconds) {
+
+        if (cacheSize < 0 || timeoutSeconds < 0) {
+            throw new LynchjException(ErrorStatusEnum.NULL_VALUE_ERROR);
+        }
+        sessionCacheSize = cacheSize;
+        sessionTimeoutSeconds = timeoutSeconds;
+        if (null != trustAllContext) {
+            configureSessionCache(trustAllContext);
+        }
+        for (KeyStoreContext context : KEY_STORE_CONTEXTS.values()) {
+            configureSessionCache(context.sslContext);
+        }
+
+    }
+
+    public static int getSessionCacheSize() {
+        return sessionCacheSize;
+    }
+
+    public static int getSessionTimeoutSeconds() {
+        return sessionTimeoutSeconds;
+    }
+
+    /**
+     * 不校验服务端证书的上下文, 只创建一次
+     *
+     * @return SSL上下文对象
+     * @throws GeneralSecurityException
+     */
+    public static SSLContext trustAll() throws GeneralSecurityException {
+
+        SSLContext context = trustAllContext;
+        if (null != context) {
+            return context;
+        }
+        synchronized (HttpSslContexts.class) {
+            if (null == trustAllContext) {
+                context = SSLContext.getInstance("TLS");
+                // 实现一个X509TrustManager接口，用于绕过验证，不用修改里面的方法
+                X509TrustManager x509TrustManager = new X509TrustManager() {
+                    @Override
+                    public X509Certificate[] getAcceptedIssuers() {
+                        return new X509Certificate[0];
+                    }
+                    @Override
+                    public void checkServerTrusted(X509Certificate[] chain, String authType) {
+                    }
+                    @Override
+                    public void checkClientTrusted(X509Certificate[] chain, String authType) {
+                    }
+                };
+                context.init(null, new TrustManager[] {x509TrustManager}, null);
+                configureSessionCache(context);
+                trustAllContext = context;
+            }
+            return trustAllContext;
+        }
+
+    }
+
+    /**
+     * 信任证书库中证书和自签名证书的上下文, 文件没有变化时返回缓存的上下文
+     *
+     * @param keyStoreFile 证书库文件
+     * @param password 证书库密码
+     * @return SSL上下文对象
+     * @throws GeneralSecurityException
+     * @throws IOException
+     */
+    public static SSLContext forKeyStore(File keyStoreFile, String password) throws GeneralSecurityException, IOException {
+
+        if (null == keyStoreFile || null == password) {
+            throw new LynchjException(ErrorStatusEnum.NULL_VALUE_ERROR);
+        }
+        String key = keyStoreFile.getAbsolutePath();
+        long lastModified = keyStoreFile.lastModified();
+        long length = keyStoreFile.length();
+        KeyStoreContext cached = KEY_STORE_CONTEXTS.get(key);
+        if (null != cached && cached.matches(lastModified, length, password)) {
+            return cached.sslContext;
+        }
+
+        synchronized (KEY_STORE_CONTEXTS) {
+            cached = KEY_STORE_CONTEXTS.get(key);
+            if (null != cached && cached.matches(lastModified, length, password)) {
+                return cached.sslContext;
+            }
+            try {
+                KeyStore keyStore = KeyStore.getInstance(KeyStore.getDefaultType());
+                try (InputStream inputStream = new FileInputStream(keyStoreFile)) {
+                    keyStore.load(inputStream, password.toCharArray());
+                }
+                SSLContext context = SSLContexts.custom()
+                        .useProtocol("TLS")
+                        .loadTrustMaterial(keyStore, new TrustSelfSignedStrategy())
+                        .build();
+                configureSessionCache(context);
+                KEY_STORE_CONTEXTS.put(key, new KeyStoreContext(lastModified, length, password, context));
+                return context;
+            } catch (GeneralSecurityException | IOException e) {
+                if (null == cached || !cached.password.equals(password)) {
+                    throw e;
+                }
+                // 文件可能正在被替换, 继续使用原来的上下文, 下次调用时再尝试
+                System.err.println("重新加载证书库失败, 继续使用原来的证书: " + key);
+                e.printStackTrace();
+                return cached.sslContext;
+            }
+        }
+
+    }
+
+    /**
+     * 上下文支持的协议中启用的部分
+     *
+     * @param sslContext SSL上下文对象
+     * @return 协议
+     */
+    static String[] getProtocols(SSLContext sslContext) {
+
+        List<String> supported = Arrays.asList(sslContext.getSupportedSSLParameters().getProtocols());
+        List<String> protocols = new ArrayList<>();
+        for (String protocol : PROTOCOLS) {
+            if (supported.contains(protocol)) {
+                protocols.add(protocol);
+            }
+        }
+        return protocols.toArray(new String[protocols.size()]);
+
+    }
+
+    /**
+     * 上下文默认启用的加密套件中去掉不安全的部分, 保持默认的优先顺序
+     *
+     * @param sslContext SSL上下文对象
+     * @return 加密套件
+     */
+    static String[] getCipherSuites(SSLContext sslContext) {
+
+        List<String> cipherSuites = new ArrayList<>();
+        for (String cipherSuite : sslContext.getDefaultSSLParameters().getCipherSuites()) {
+            if (!isWeak(cipherSuite)) {
+                cipherSuites.add(cipherSuite);
+            }
+        }
+        return cipherSuites.toArray(new String[cipherSuites.size()]);
+
+    }
+
+    private static boolean isWeak(String cipherSuite) {
+
+        for (String pattern : WEAK_CIPHER_PATTERNS) {
+            if (cipherSuite.contains(pattern)) {
+                return true;
+            }
+        }
+        return false;
+
+    }
+
+    /**
+     * 设置客户端会话缓存
+     *
+     * @param sslContext SSL上下文对象
+     */
+    private static void configureSessionCache(SSLContext sslContext) {
+
+        SSLSessionContext sessionContext = sslContext.getClientSessionContext();
+        if (null != sessionContext) {
+            sessionContext.setSessionCacheSize(sessionCacheSize);
+            sessionContext.setSessionTimeout(sessionTimeoutSeconds);
+        }
+
+    }
+
+    /**
+     * 缓存的证书库上下文
+     */
+    private static class KeyStoreContext {
+
+        final long lastModified;
+
+        final long length;
+
+        final String password;
+
+        final SSLContext sslContext;
+
+        KeyStoreContext(long lastModified, long length, String password, SSLContext sslContext) {
+            this.lastModified = lastModified;
+            this.length = length;
+            this.password = password;
+            this.sslContext = sslContext;
+        }
+
+        boolean matches(long lastModified, long length, String password) {
+            return this.lastModified == lastModified && this.length == length && this.password.equals(password);
+        }
+
+    }
+
+}
@@ -0,0 +1,24 @@
+package com.lynchj.utils.socket;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * 响应流处理器
+ * 	直接读取响应实体的原始输入流, 不会把响应信息整体缓冲到内存中
+ *
+ * @author 大漠知秋
+ */
+@FunctionalInterface
+public interface HttpStreamHandler<T> {
+
+    /**
+     * 处理响应流, 方法返回后流会被关闭, 连接归还连接池
+     *
+     * @param inputStream 响应实体输入流
+     * @return 处理结果
+     * @throws IOException
+     */
+    T handle(InputStream inputStream) throws IOException;
+
+}
@@ -0,0 +1,190 @@
+package com.lynchj.utils.socket;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.PushbackInputStream;
+import java.io.Reader;
+import java.lang.reflect.Type;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.StandardOpenOption;
+
+import com.alibaba.fastjson.JSONReader;
+import com.alibaba.fastjson.TypeReference;
+import com.lynchj.enums.ErrorStatusEnum;
+import com.lynchj.exception.LynchjException;
+
+/**
+ * 常用的响应流处理器
+ * 	所有处理器都只使用固定大小的缓冲区, 内存占用与响应大小无关
+ *
+ * @author 大漠知秋
+ */
+public class HttpStreamHandlers {
+
+    public HttpStreamHandlers() {
+        throw new LynchjException(ErrorStatusEnum.CREATE_UTILS_ENTITY_ERROR);
+    }
+
+    /** 默认缓冲区大小 */
+    public static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * 按指定字符集读取为字符串, 保留原始换行
+     *
+     * @param charset 字符集
+     * @return 处理器
+     */
+    public static HttpStreamHandler<String> ofString(String charset) {
+
+        return inputStream -> {
+            StringBuilder sb = new StringBuilder();
+            Reader reader = new InputStreamReader(inputStream, charset);
+            char[] buffer = new char[4096];
+            int len;
+            while ((len = reader.read(buffer)) != -1) {
+                sb.append(buffer, 0, len);
+            }
+            return sb.toString();
+        };
+
+    }
+
+    /**
+     * 按JSON直接从流中解析为指定类型, 不生成中间字符串
+     *
+     * @param clazz 类型
+     * @param charset 字符集
+     * @return 处理器, 响应为空时结果为null
+     */
+    public static <T> HttpStreamHandler<T> ofJson(Class<T> clazz, String charset) {
+        return ofJson((Type) clazz, charset);
+    }
+
+    /**
+     * 按JSON直接从流中解析为指定泛型类型, 不生成中间字符串
+     *
+     * @param typeReference 泛型类型, 如: new TypeReference&lt;List&lt;User&gt;&gt;() {}
+     * @param charset 字符集
+     * @return 处理器, 响应为空时结果为null
+     */
+    public static <T> HttpStreamHandler<T> ofJson(TypeReference<T> typeReference, String charset) {
+        return ofJson(typeReference.getType(), charset);
+    }
+
+    /**
+     * 按JSON直接从流中解析为指定类型
+     *
+     * @param type 类型
+     * @param charset 字符集
+     * @return 处理器, 响应为空时结果为null
+     */
+    private static <T> HttpStreamHandler<T> ofJson(Type type, String charset) {
+
+        return inputStream -> {
+            // 先看一个字节, 空响应直接返回null
+            PushbackInputStream pushbackInputStream = new PushbackInputStream(inputStream, 1);
+            int first = pushbackInputStream.read();
+            if (first == -1) {
+                return null;
+            }
+            pushbackInputStream.unread(first);
+            JSONReader jsonReader = new JSONReader(new InputStreamReader(pushbackInputStream, charset));
+            return jsonReader.readObject(type);
+        };
+
+    }
+
+    /**
+     * 按数据块交给消费者, 使用默认缓冲区大小
+     *
+     * @param consumer 数据块消费者
+     * @return 处理器, 结果为总字节数
+     */
+    public static HttpStreamHandler<Long> ofChunks(HttpChunkConsumer consumer) {
+        return ofChunks(consumer, DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * 按数据块交给消费者, 每次最多一个缓冲区大小
+     *
+     * @param consumer 数据块消费者
+     * @param bufferSize 缓冲区大小
+     * @return 处理器, 结果为总字节数
+     */
+    public static HttpStreamHandler<Long> ofChunks(HttpChunkConsumer consumer, int bufferSize) {
+
+        return inputStream -> {
+            ReadableByteChannel channel = Channels.newChannel(inputStream);
+            ByteBuffer buffer = ByteBuffer.allocate(bufferSize);
+            long total = 0;
+            while (channel.read(buffer) != -1) {
+                buffer.flip();
+                if (buffer.hasRemaining()) {
+                    total += buffer.remaining();
+                    consumer.accept(buffer.asReadOnlyBuffer());
+                }
+                buffer.clear();
+            }
+            return total;
+        };
+
+    }
+
+    /**
+     * 写入到文件, 使用默认缓冲区大小
+     *
+     * @param file 目标文件, 已存在时覆盖
+     * @return 处理器, 结果为写入的字节数
+     */
+    public static HttpStreamHandler<Long> ofFile(File file) {
+        return ofFile(file, DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * 通过 FileChannel 写入到文件, 只在响应成功时创建文件
+     *
+     * @param file 目标文件, 已存在时覆盖
+     * @param bufferSize 缓冲区大小
+     * @return 处理器, 结果为写入的字节数
+     */
+    public static HttpStreamHandler<Long> ofFile(File file, int bufferSize) {
+
+        return inputStream -> {
+            try (FileChannel fileChannel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                return copy(inputStream, fileChannel, bufferSize);
+            }
+        };
+
+    }
+
+    /**
+     * 使用固定大小的直接缓冲区把输入流写入文件通道
+     *
+     * @param inputStream 输入流
+     * @param fileChannel 文件通道
+     * @param bufferSize 缓冲区大小
+     * @return 写入的字节数
+     * @throws IOException
+     */
+    static long copy(InputStream inputStream, FileChannel fileChannel, int bufferSize) throws IOException {
+
+        ReadableByteChannel channel = Channels.newChannel(inputStream);
+        ByteBuffer buffer = ByteBuffer.allocateDirect(bufferSize);
+        long total = 0;
+        while (channel.read(buffer) != -1) {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                total += fileChannel.write(buffer);
+            }
+            buffer.clear();
+        }
+        return total;
+
+    }
+
+}
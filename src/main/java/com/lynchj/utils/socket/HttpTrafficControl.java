@@ -0,0 +1,278 @@
+package com.lynchj.utils.socket;
+
+import java.net.URI;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.http.HttpHost;
+import org.apache.http.client.methods.HttpRequestBase;
+
+import com.lynchj.enums.ErrorStatusEnum;
+import com.lynchj.exception.LynchjException;
+
+/**
+ * 按主机的限流和熔断, 默认都关闭
+ * 	限流: 令牌桶, 没有令牌时请求直接被拒绝;
+ * 	熔断: 按失败率(IO异常和5xx响应)和慢调用率打开, 打开期间请求直接被拒绝;
+ * 	被拒绝的请求不会发出, 同步请求方法返回"-1", 流式方法抛出 {@link HttpRequestRejectedException}
+ *
+ * @author 大漠知秋
+ */
+public class HttpTrafficControl {
+
+    public HttpTrafficControl() {
+        throw new LynchjException(ErrorStatusEnum.CREATE_UTILS_ENTITY_ERROR);
+    }
+
+    /** 默认统计窗口(最近调用数) */
+    public static final int DEFAULT_WINDOW_SIZE = 100;
+
+    /** 默认最少调用数, 窗口中调用数不足时不打开 */
+    public static final int DEFAULT_MINIMUM_CALLS = 20;
+
+    /** 默认失败率阈值 */
+    public static final double DEFAULT_FAILURE_RATE_THRESHOLD = 0.5;
+
+    /** 默认慢调用耗时(毫秒) */
+    public static final long DEFAULT_SLOW_CALL_MILLIS = 5 * 1000;
+
+    /** 默认慢调用率阈值 */
+    public static final double DEFAULT_SLOW_CALL_RATE_THRESHOLD = 0.8;
+
+    /** 默认打开后等待多久进入半开(毫秒) */
+    public static final long DEFAULT_OPEN_MILLIS = 10 * 1000;
+
+    /** 默认半开时的试探请求数 */
+    public static final int DEFAULT_HALF_OPEN_CALLS = 5;
+
+    /** 按主机设置的令牌桶 */
+    private static final ConcurrentMap<HttpHost, TokenBucket> RATE_LIMITERS = new ConcurrentHashMap<>();
+
+    /** 按主机创建的熔断器 */
+    private static final ConcurrentMap<HttpHost, HttpCircuitBreaker> BREAKERS = new ConcurrentHashMap<>();
+
+    /** 熔断参数, 未开启时为null */
+    private static volatile BreakerConfig breakerConfig;
+
+    /** 被限流拒绝的次数 */
+    private static final LongAdder RATE_LIMITED_COUNT = new LongAdder();
+
+    /** 被熔断拒绝的次数 */
+    private static final LongAdder CIRCUIT_OPEN_COUNT = new LongAdder();
+
+    /**
+     * 设置主机的限流
+     *
+     * @param url 主机地址, 如: https://api.lynchj.com, 只使用协议、主机和端口
+     * @param permitsPerSecond 每秒允许的请求数
+     * @param burst 允许的突发请求数
+     */
+    public static void setRateLimit(String url, double permitsPerSecond, int burst) {
+
+        if (permitsPerSecond <= 0 || burst < 1) {
+            throw new LynchjException(ErrorStatusEnum.NULL_VALUE_ERROR);
+        }
+        RATE_LIMITERS.put(toHost(url), new TokenBucket(permitsPerSecond, burst));
+
+    }
+
+    /**
+     * 取消主机的限流
+     *
+     * @param url 主机地址
+     */
+    public static void removeRateLimit(String url) {
+        RATE_LIMITERS.remove(toHost(url));
+    }
+
+    /**
+     * 主机当前可用的令牌数
+     *
+     * @param url 主机地址
+     * @return 令牌数, 没有设置限流时为-1
+     */
+    public static double getAvailablePermits(String url) {
+
+        TokenBucket bucket = RATE_LIMITERS.get(toHost(url));
+        return null == bucket ? -1 : bucket.getAvailablePermits();
+
+    }
+
+    /**
+     * 使用默认参数开启熔断
+     */
+    public static void enableCircuitBreaker() {
+        enableCircuitBreaker(DEFAULT_WINDOW_SIZE, DEFAULT_MINIMUM_CALLS, DEFAULT_FAILURE_RATE_THRESHOLD,
+                DEFAULT_SLOW_CALL_MILLIS, DEFAULT_SLOW_CALL_RATE_THRESHOLD, DEFAULT_OPEN_MILLIS, DEFAULT_HALF_OPEN_CALLS);
+    }
+
+    /**
+     * 开启熔断, 已开启时按新参数重新开启, 所有主机回到关闭状态
+     *
+     * @param windowSize 统计窗口(最近调用数)
+     * @param minimumCalls 最少调用数, 窗口中调用数不足时不打开
+     * @param failureRateThreshold 失败率阈值, 0 ~ 1
+     * @param slowCallMillis 慢调用耗时(毫秒), 小于等于0表示不统计慢调用
+     * @param slowCallRateThreshold 慢调用率阈值, 0 ~ 1
+     * @param openMillis 打开后等待多久进入半开(毫秒)
+     * @param halfOpenCalls 半开时的试探请求数
+     */
+    public static synchronized void enableCircuitBreaker(int windowSize, int minimumCalls, double failureRateThreshold,
+            long slowCallMillis, double slowCallRateThreshold, long openMillis, int halfOpenCalls) {
+
+        if (windowSize < 1 || minimumCalls < 1 || halfOpenCalls < 1 || halfOpenCalls > windowSize || openMillis < 0
+                || failureRateThreshold <= 0 || slowCallRateThreshold <= 0) {
+            throw new LynchjException(ErrorStatusEnum.NULL_VALUE_ERROR);
+        }
+        BREAKERS.clear();
+        breakerConfig = new BreakerConfig(windowSize, Math.min(minimumCalls, windowSize), failureRateThreshold,
+                TimeUnit.MILLISECONDS.toNanos(Math.max(0, slowCallMillis)), slowCallRateThreshold, openMillis, halfOpenCalls);
+
+    }
+
+    /**
+     * 关闭熔断
+     */
+    public static synchronized void disableCircuitBreaker() {
+        breakerConfig = null;
+        BREAKERS.clear();
+    }
+
+    public static boolean isCircuitBreakerEnabled() {
+        return null != breakerConfig;
+    }
+
+    /**
+     * 主机当前的熔断状态
+     *
+     * @param url 主机地址
+     * @return 状态, 没有请求过或未开启熔断时为 CLOSED
+     */
+    public static HttpCircuitBreaker.State getCircuitState(String url) {
+
+        HttpCircuitBreaker breaker = BREAKERS.get(toHost(url));
+        return null == breaker ? HttpCircuitBreaker.State.CLOSED : breaker.getState();
+
+    }
+
+    /**
+     * 所有主机的熔断器
+     *
+     * @return 主机 - 熔断器
+     */
+    public static Map<String, HttpCircuitBreaker> getCircuitBreakers() {
+
+        Map<String, HttpCircuitBreaker> breakers = new HashMap<>();
+        for (Map.Entry<HttpHost, HttpCircuitBreaker> entry : BREAKERS.entrySet()) {
+            breakers.put(entry.getKey().toURI(), entry.getValue());
+        }
+        return Collections.unmodifiableMap(breakers);
+
+    }
+
+    /**
+     * 手动把主机的熔断器恢复为关闭状态
+     *
+     * @param url 主机地址
+     */
+    public static void resetCircuitBreaker(String url) {
+
+        HttpCircuitBreaker breaker = BREAKERS.get(toHost(url));
+        if (null != breaker) {
+            breaker.reset();
+        }
+
+    }
+
+    public static long getRateLimitedCount() {
+        return RATE_LIMITED_COUNT.sum();
+    }
+
+    public static long getCircuitOpenCount() {
+        return CIRCUIT_OPEN_COUNT.sum();
+    }
+
+    /**
+     * 请求发出前检查限流和熔断
+     *
+     * @param httpRequest 请求对象
+     * @return 需要记录结果的熔断放行凭证, 未开启熔断时为null
+     * @throws HttpRequestRejectedException 被限流或熔断拒绝
+     */
+    static HttpCircuitBreaker.Permit acquire(HttpRequestBase httpRequest) throws HttpRequestRejectedException {
+
+        BreakerConfig config = breakerConfig;
+        if (RATE_LIMITERS.isEmpty() && null == config) {
+            return null;
+        }
+        URI uri = httpRequest.getURI();
+        if (null == uri || null == uri.getHost()) {
+            return null;
+        }
+        HttpHost host = HttpConnectionPoolManager.toRoute(uri).getTargetHost();
+
+        TokenBucket bucket = RATE_LIMITERS.get(host);
+        if (null != bucket && !bucket.tryAcquire()) {
+            RATE_LIMITED_COUNT.increment();
+            throw new HttpRequestRejectedException("请求被限流: " + host.toURI());
+        }
+
+        if (null == config) {
+            return null;
+        }
+        HttpCircuitBreaker breaker = BREAKERS.get(host);
+        if (null == breaker) {
+            breaker = BREAKERS.computeIfAbsent(host, key -> new HttpCircuitBreaker(config));
+        }
+        HttpCircuitBreaker.Permit permit = breaker.tryAcquire();
+        if (null == permit) {
+            CIRCUIT_OPEN_COUNT.increment();
+            throw new HttpRequestRejectedException("请求被熔断: " + host.toURI());
+        }
+
+        return permit;
+
+    }
+
+    private static HttpHost toHost(String url) {
+        return HttpConnectionPoolManager.toRoute(url).getTargetHost();
+    }
+
+    /**
+     * 熔断参数
+     */
+    static class BreakerConfig {
+
+        final int windowSize;
+
+        final int minimumCalls;
+
+        final double failureRateThreshold;
+
+        final long slowCallNanos;
+
+        final double slowCallRateThreshold;
+
+        final long openMillis;
+
+        final int halfOpenCalls;
+
+        BreakerConfig(int windowSize, int minimumCalls, double failureRateThreshold, long slowCallNanos,
+                double slowCallRateThreshold, long openMillis, int halfOpenCalls) {
+            this.windowSize = windowSize;
+            this.minimumCalls = minimumCalls;
+            this.failureRateThreshold = failureRateThreshold;
+            this.slowCallNanos = slowCallNanos;
+            this.slowCallRateThreshold = slowCallRateThreshold;
+            this.openMillis = openMillis;
+            this.halfOpenCalls = halfOpenCalls;
+        }
+
+    }
+
+}
@@ -0,0 +1,32 @@
+package com.lynchj.utils.socket;
+
+import java.io.IOException;
+
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpRequestBase;
+import org.apache.http.client.protocol.HttpClientContext;
+
+/**
+ * Http传输层, HttpRequestUtils 的所有同步请求都通过它发出
+ * 	默认使用 HttpClient 4.x 的 HTTP/1.1 连接池, 可以通过 {@link HttpTransports} 切换
+ *
+ * @author 大漠知秋
+ */
+public interface HttpTransport {
+
+    /**
+     * 发送请求, 超时时间已设置在请求自身的 RequestConfig 中
+     *
+     * @param httpRequest 请求对象
+     * @param clientContext Http请求客户端上下文对象，包含Cookie, 可以为null
+     * @return 响应, 由调用方关闭
+     * @throws IOException
+     */
+    CloseableHttpResponse execute(HttpRequestBase httpRequest, HttpClientContext clientContext) throws IOException;
+
+    /**
+     * 关闭传输层, 释放连接和线程
+     */
+    void shutdown();
+
+}
@@ -0,0 +1,88 @@
+package com.lynchj.utils.socket;
+
+import com.lynchj.enums.ErrorStatusEnum;
+import com.lynchj.exception.LynchjException;
+
+/**
+ * 传输层选择
+ * 	默认使用 HTTP/1.1 连接池, 启动参数 -Dlynchj.http.transport=h2 时使用 HTTP/2,
+ * 	也可以在运行中通过 {@link #setTransport(HttpTransport)} 切换
+ *
+ * @author 大漠知秋
+ */
+public class HttpTransports {
+
+    public HttpTransports() {
+        throw new LynchjException(ErrorStatusEnum.CREATE_UTILS_ENTITY_ERROR);
+    }
+
+    /** 选择传输层的系统属性 */
+    public static final String TRANSPORT_PROPERTY = "lynchj.http.transport";
+
+    /** 当前传输层 */
+    private static volatile HttpTransport transport = fromProperty(System.getProperty(TRANSPORT_PROPERTY));
+
+    /**
+     * 当前传输层
+     *
+     * @return 传输层
+     */
+    public static HttpTransport getTransport() {
+        return transport;
+    }
+
+    /**
+     * 切换传输层, 之后发起的请求使用新传输层, 原传输层关闭(默认的 HTTP/1.1 传输层除外)
+     *
+     * @param transport 传输层
+     */
+    public static synchronized void setTransport(HttpTransport transport) {
+
+        if (null == transport) {
+            throw new LynchjException(ErrorStatusEnum.NULL_VALUE_ERROR);
+        }
+        HttpTransport previous = HttpTransports.transport;
+        HttpTransports.transport = transport;
+        if (previous != transport && previous != HttpClientTransport.INSTANCE) {
+            previous.shutdown();
+        }
+
+    }
+
+    /**
+     * 切换为默认的 HTTP/1.1 传输层
+     */
+    public static void useHttp1() {
+        setTransport(HttpClientTransport.INSTANCE);
+    }
+
+    /**
+     * 切换为 HTTP/2 传输层
+     */
+    public static void useHttp2() {
+        setTransport(new Http2Transport());
+    }
+
+    /**
+     * 关闭当前传输层
+     */
+    static synchronized void shutdown() {
+        transport.shutdown();
+    }
+
+    /**
+     * 按系统属性选择传输层
+     *
+     * @param value 属性值: h2 / http2 使用 HTTP/2, 其余使用 HTTP/1.1
+     * @return 传输层
+     */
+    private static HttpTransport fromProperty(String value) {
+
+        if (null != value && ("h2".equalsIgnoreCase(value.trim()) || "http2".equalsIgnoreCase(value.trim()))) {
+            return new Http2Transport();
+        }
+        return HttpClientTransport.INSTANCE;
+
+    }
+
+}
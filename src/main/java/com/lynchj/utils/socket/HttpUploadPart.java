@@ -0,0 +1,128 @@
+package com.lynchj.utils.socket;
+
+import java.io.File;
+import java.io.InputStream;
+import java.nio.file.Path;
+
+import org.apache.http.entity.ContentType;
+import org.apache.http.entity.mime.content.ContentBody;
+import org.apache.http.entity.mime.content.InputStreamBody;
+
+import com.lynchj.enums.ErrorStatusEnum;
+import com.lynchj.exception.LynchjException;
+
+/**
+ * multipart 上传的文件部分, 发送时才读取内容, 不会整体读入内存
+ * 	文件: 长度已知, 可重复发送, 可以重试;
+ * 	输入流: 长度未知, 整个请求改为分块传输, 只能发送一次, 由调用方负责关闭
+ *
+ * @author 大漠知秋
+ */
+public class HttpUploadPart {
+
+    /** 表单字段名 */
+    private final String name;
+
+    /** 内容 */
+    private final ContentBody body;
+
+    private HttpUploadPart(String name, ContentBody body) {
+        this.name = name;
+        this.body = body;
+    }
+
+    /**
+     * 文件部分, 类型为 application/octet-stream
+     *
+     * @param name 表单字段名
+     * @param file 文件
+     * @return 文件部分
+     */
+    public static HttpUploadPart ofFile(String name, File file) {
+        return ofFile(name, file, ContentType.APPLICATION_OCTET_STREAM);
+    }
+
+    /**
+     * 文件部分
+     *
+     * @param name 表单字段名
+     * @param file 文件
+     * @param contentType 内容类型
+     * @return 文件部分
+     */
+    public static HttpUploadPart ofFile(String name, File file, ContentType contentType) {
+
+        if (null == file || !file.isFile()) {
+            throw new LynchjException(ErrorStatusEnum.NULL_VALUE_ERROR);
+        }
+        return ofPath(name, file.toPath(), contentType);
+
+    }
+
+    /**
+     * 文件部分, 类型为 application/octet-stream
+     *
+     * @param name 表单字段名
+     * @param path 文件路径
+     * @return 文件部分
+     */
+    public static HttpUploadPart ofPath(String name, Path path) {
+        return ofPath(name, path, ContentType.APPLICATION_OCTET_STREAM);
+    }
+
+    /**
+     * 文件部分
+     *
+     * @param name 表单字段名
+     * @param path 文件路径
+     * @param contentType 内容类型
+     * @return 文件部分
+     */
+    public static HttpUploadPart ofPath(String name, Path path, ContentType contentType) {
+
+        if (null == name || null == path || null == contentType) {
+            throw new LynchjException(ErrorStatusEnum.NULL_VALUE_ERROR);
+        }
+        return new HttpUploadPart(name, new FileChannelBody(path, contentType, path.getFileName().toString()));
+
+    }
+
+    /**
+     * 输入流部分, 类型为 application/octet-stream
+     *
+     * @param name 表单字段名
+     * @param fileName 文件名
+     * @param inputStream 输入流
+     * @return 输入流部分
+     */
+    public static HttpUploadPart ofStream(String name, String fileName, InputStream inputStream) {
+        return ofStream(name, fileName, inputStream, ContentType.APPLICATION_OCTET_STREAM);
+    }
+
+    /**
+     * 输入流部分
+     *
+     * @param name 表单字段名
+     * @param fileName 文件名
+     * @param inputStream 输入流
+     * @param contentType 内容类型
+     * @return 输入流部分
+     */
+    public static HttpUploadPart ofStream(String name, String fileName, InputStream inputStream, ContentType contentType) {
+
+        if (null == name || null == inputStream || null == contentType) {
+            throw new LynchjException(ErrorStatusEnum.NULL_VALUE_ERROR);
+        }
+        return new HttpUploadPart(name, new InputStreamBody(inputStream, contentType, fileName));
+
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    ContentBody getBody() {
+        return body;
+    }
+
+}
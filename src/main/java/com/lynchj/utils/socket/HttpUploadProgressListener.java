@@ -0,0 +1,19 @@
+package com.lynchj.utils.socket;
+
+/**
+ * 上传进度监听器, 在发送请求的线程中回调, 不要在回调中做耗时操作
+ *
+ * @author 大漠知秋
+ */
+@FunctionalInterface
+public interface HttpUploadProgressListener {
+
+    /**
+     * 已发送一部分请求体
+     *
+     * @param transferred 已发送字节数
+     * @param total 请求体总字节数, 未知时为-1
+     */
+    void onProgress(long transferred, long total);
+
+}
@@ -0,0 +1,39 @@
+package com.lynchj.utils.socket;
+
+import java.io.IOException;
+
+import org.apache.http.HttpClientConnection;
+import org.apache.http.HttpException;
+import org.apache.http.HttpRequest;
+import org.apache.http.HttpResponse;
+import org.apache.http.client.protocol.HttpClientContext;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.conn.routing.RouteInfo;
+import org.apache.http.protocol.HttpContext;
+import org.apache.http.protocol.HttpRequestExecutor;
+
+/**
+ * 记录发送请求到收到响应头耗时的请求执行器, 耗时同时按路由提供给自适应连接数调整
+ *
+ * @author 大漠知秋
+ */
+class InstrumentedRequestExecutor extends HttpRequestExecutor {
+
+    @Override
+    public HttpResponse execute(HttpRequest request, HttpClientConnection conn, HttpContext context) throws IOException, HttpException {
+
+        long start = System.nanoTime();
+        try {
+            return super.execute(request, conn, context);
+        } finally {
+            long nanos = System.nanoTime() - start;
+            HttpClientMetrics.recordResponse(nanos);
+            RouteInfo route = HttpClientContext.adapt(context).getHttpRoute();
+            if (route instanceof HttpRoute) {
+                HttpConnectionPoolManager.recordRouteLatency((HttpRoute) route, nanos);
+            }
+        }
+
+    }
+
+}
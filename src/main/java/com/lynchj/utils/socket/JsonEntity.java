@@ -0,0 +1,89 @@
+package com.lynchj.utils.socket;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+import org.apache.http.entity.AbstractHttpEntity;
+import org.apache.http.entity.ContentType;
+import org.apache.http.util.Args;
+
+import com.alibaba.fastjson.JSON;
+
+/**
+ * 流式的JSON请求体
+ * 	发送时把对象直接序列化到连接的输出流, 分块传输, 不生成完整的字符串和字节数组,
+ * 	适合大集合或大对象作为请求体; 可重复发送, 每次发送重新序列化
+ *
+ * @author 大漠知秋
+ */
+public class JsonEntity extends AbstractHttpEntity {
+
+    /** 请求体对象 */
+    private final Object body;
+
+    /** 字符集 */
+    private final Charset charset;
+
+    /**
+     * 使用 UTF-8 编码
+     *
+     * @param body 请求体对象, 如: Map、集合、POJO
+     */
+    public JsonEntity(Object body) {
+        this(body, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @param body 请求体对象, 如: Map、集合、POJO
+     * @param charset 字符集
+     */
+    public JsonEntity(Object body, Charset charset) {
+
+        this.body = body;
+        this.charset = null == charset ? StandardCharsets.UTF_8 : charset;
+        setContentType(ContentType.APPLICATION_JSON.withCharset(this.charset).toString());
+        setChunked(true);
+
+    }
+
+    @Override
+    public boolean isRepeatable() {
+        return true;
+    }
+
+    @Override
+    public long getContentLength() {
+        return -1;
+    }
+
+    /**
+     * 以流的方式读取请求体时只能先完整序列化, 发送请求时使用 {@link #writeTo(OutputStream)} 不会走到这里
+     */
+    @Override
+    public InputStream getContent() throws IOException {
+        return new ByteArrayInputStream(JSON.toJSONString(body).getBytes(charset));
+    }
+
+    @Override
+    public void writeTo(OutputStream outStream) throws IOException {
+
+        Args.notNull(outStream, "Output stream");
+        // 序列化缓冲区写满后直接刷到输出流, 不关闭输出流
+        Writer writer = new OutputStreamWriter(outStream, charset);
+        JSON.writeJSONString(writer, body);
+        writer.flush();
+
+    }
+
+    @Override
+    public boolean isStreaming() {
+        return false;
+    }
+
+}
@@ -0,0 +1,133 @@
+package com.lynchj.utils.socket;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 无锁的耗时直方图
+ * 	按微秒以2的幂划分桶, 记录时只做原子累加, 百分位按桶上界估算
+ *
+ * @author 大漠知秋
+ */
+public class LatencyHistogram {
+
+    /** 桶数量, 最后一个桶容纳所有超过 2^(BUCKET_COUNT-2) 微秒的记录 */
+    private static final int BUCKET_COUNT = 32;
+
+    /** 各个桶的计数 */
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_COUNT);
+
+    /** 总次数 */
+    private final LongAdder count = new LongAdder();
+
+    /** 总耗时(纳秒) */
+    private final LongAdder totalNanos = new LongAdder();
+
+    /** 最大耗时(纳秒) */
+    private final AtomicLong maxNanos = new AtomicLong();
+
+    /**
+     * 记录一次耗时
+     *
+     * @param nanos 耗时(纳秒)
+     */
+    public void record(long nanos) {
+
+        if (nanos < 0) {
+            return;
+        }
+        long micros = TimeUnit.NANOSECONDS.toMicros(nanos);
+        int index = micros == 0 ? 0 : Math.min(BUCKET_COUNT - 1, 64 - Long.numberOfLeadingZeros(micros));
+        buckets.incrementAndGet(index);
+        count.increment();
+        totalNanos.add(nanos);
+        if (nanos > maxNanos.get()) {
+            maxNanos.accumulateAndGet(nanos, Math::max);
+        }
+
+    }
+
+    /**
+     * 总次数
+     *
+     * @return 次数
+     */
+    public long getCount() {
+        return count.sum();
+    }
+
+    /**
+     * 平均耗时
+     *
+     * @return 毫秒
+     */
+    public double getMeanMillis() {
+
+        long countValue = count.sum();
+        return countValue == 0 ? 0 : totalNanos.sum() / 1000000.0 / countValue;
+
+    }
+
+    /**
+     * 最大耗时
+     *
+     * @return 毫秒
+     */
+    public double getMaxMillis() {
+        return maxNanos.get() / 1000000.0;
+    }
+
+    /**
+     * 估算百分位耗时, 返回所在桶的上界, 不超过最大耗时
+     *
+     * @param percentile 百分位, 如 0.99
+     * @return 毫秒
+     */
+    public double getPercentileMillis(double percentile) {
+
+        long[] snapshot = new long[BUCKET_COUNT];
+        long total = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            snapshot[i] = buckets.get(i);
+            total += snapshot[i];
+        }
+        if (total == 0) {
+            return 0;
+        }
+
+        long threshold = (long) Math.ceil(total * percentile);
+        long cumulative = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            cumulative += snapshot[i];
+            if (cumulative >= threshold) {
+                return i == BUCKET_COUNT - 1 ? getMaxMillis() : Math.min((1L << i) / 1000.0, getMaxMillis());
+            }
+        }
+
+        return getMaxMillis();
+
+    }
+
+    /**
+     * 清空记录
+     */
+    public void reset() {
+
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            buckets.set(i, 0);
+        }
+        count.reset();
+        totalNanos.reset();
+        maxNanos.set(0);
+
+    }
+
+    @Override
+    public String toString() {
+        return "LatencyHistogram [count=" + getCount() + ", mean=" + getMeanMillis() + "ms, p50=" + getPercentileMillis(0.5)
+                + "ms, p99=" + getPercentileMillis(0.99) + "ms, max=" + getMaxMillis() + "ms]";
+    }
+
+}
@@ -0,0 +1,63 @@
+package com.lynchj.utils.socket;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+import org.apache.http.HttpEntity;
+import org.apache.http.entity.HttpEntityWrapper;
+
+/**
+ * 统计已发送字节数并回调进度的请求体
+ *
+ * @author 大漠知秋
+ */
+class ProgressHttpEntity extends HttpEntityWrapper {
+
+    /** 进度监听器 */
+    private final HttpUploadProgressListener listener;
+
+    ProgressHttpEntity(HttpEntity wrappedEntity, HttpUploadProgressListener listener) {
+        super(wrappedEntity);
+        this.listener = listener;
+    }
+
+    @Override
+    public void writeTo(OutputStream outStream) throws IOException {
+        super.writeTo(new CountingOutputStream(outStream, getContentLength(), listener));
+    }
+
+    /**
+     * 计数输出流, 每次写入后回调进度
+     */
+    private static class CountingOutputStream extends FilterOutputStream {
+
+        private final long total;
+
+        private final HttpUploadProgressListener listener;
+
+        private long transferred;
+
+        CountingOutputStream(OutputStream out, long total, HttpUploadProgressListener listener) {
+            super(out);
+            this.total = total;
+            this.listener = listener;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            transferred++;
+            listener.onProgress(transferred, total);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            transferred += len;
+            listener.onProgress(transferred, total);
+        }
+
+    }
+
+}
@@ -0,0 +1,92 @@
+package com.lynchj.utils.socket;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+
+import javax.net.ssl.SSLContext;
+
+import org.apache.http.HttpHost;
+import org.apache.http.conn.socket.LayeredConnectionSocketFactory;
+import org.apache.http.conn.ssl.SSLConnectionSocketFactory;
+import org.apache.http.protocol.HttpContext;
+
+/**
+ * 每次新建连接时取当前SSL上下文的连接工厂
+ * 	上下文没有变化时复用同一个工厂, 证书库文件更新后新建的连接使用新证书, 已有连接不受影响
+ *
+ * @author 大漠知秋
+ */
+class ReloadingSSLSocketFactory implements LayeredConnectionSocketFactory {
+
+    /**
+     * SSL上下文提供者
+     */
+    interface SSLContextSupplier {
+
+        SSLContext get() throws Exception;
+
+    }
+
+    /** SSL上下文提供者 */
+    private final SSLContextSupplier contextSupplier;
+
+    /** 当前上下文 */
+    private volatile SSLContext currentContext;
+
+    /** 当前上下文对应的连接工厂 */
+    private volatile SSLConnectionSocketFactory currentFactory;
+
+    ReloadingSSLSocketFactory(SSLContextSupplier contextSupplier) {
+        this.contextSupplier = contextSupplier;
+    }
+
+    @Override
+    public Socket createSocket(HttpContext context) throws IOException {
+        return getFactory().createSocket(context);
+    }
+
+    @Override
+    public Socket connectSocket(int connectTimeout, Socket sock, HttpHost host, InetSocketAddress remoteAddress,
+            InetSocketAddress localAddress, HttpContext context) throws IOException {
+        return getFactory().connectSocket(connectTimeout, sock, host, remoteAddress, localAddress, context);
+    }
+
+    @Override
+    public Socket createLayeredSocket(Socket socket, String target, int port, HttpContext context) throws IOException {
+        return getFactory().createLayeredSocket(socket, target, port, context);
+    }
+
+    /**
+     * 获取当前上下文对应的连接工厂, 上下文变化时重新创建
+     *
+     * @return 连接工厂
+     * @throws IOException 获取上下文失败
+     */
+    private SSLConnectionSocketFactory getFactory() throws IOException {
+
+        SSLContext sslContext;
+        try {
+            sslContext = contextSupplier.get();
+        } catch (IOException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IOException("获取SSL上下文失败", e);
+        }
+        if (null == sslContext) {
+            throw new IOException("SSL上下文为空");
+        }
+
+        // 先读上下文再读工厂, 与写入顺序相反, 上下文一致时工厂一定是对应的或更新的
+        if (sslContext == currentContext) {
+            return currentFactory;
+        }
+        SSLConnectionSocketFactory factory = new SSLConnectionSocketFactory(sslContext, HttpSslContexts.getProtocols(sslContext),
+                HttpSslContexts.getCipherSuites(sslContext), SSLConnectionSocketFactory.getDefaultHostnameVerifier());
+        currentFactory = factory;
+        currentContext = sslContext;
+        return factory;
+
+    }
+
+}
@@ -0,0 +1,50 @@
+package com.lynchj.utils.socket;
+
+import java.io.IOException;
+
+import org.apache.http.HttpException;
+import org.apache.http.HttpHost;
+import org.apache.http.HttpRequest;
+import org.apache.http.HttpRequestInterceptor;
+import org.apache.http.client.CookieStore;
+import org.apache.http.client.protocol.HttpClientContext;
+import org.apache.http.client.protocol.RequestAddCookies;
+import org.apache.http.protocol.BasicHttpContext;
+import org.apache.http.protocol.HttpContext;
+
+/**
+ * 添加请求Cookie, 替换 HttpClient 自带的 RequestAddCookies
+ * 	上下文中是 {@link ConcurrentCookieStore} 时只把目标主机及其上级域名的Cookie交给 RequestAddCookies 匹配, 不扫描其它域名;
+ * 	匹配在子上下文中进行, 不修改调用方共享的上下文中的 CookieStore; 其它 CookieStore 与 RequestAddCookies 相同
+ *
+ * @author 大漠知秋
+ */
+class RequestAddHostCookies implements HttpRequestInterceptor {
+
+    private final RequestAddCookies requestAddCookies = new RequestAddCookies();
+
+    @Override
+    public void process(HttpRequest request, HttpContext context) throws HttpException, IOException {
+
+        HttpClientContext clientContext = HttpClientContext.adapt(context);
+        CookieStore cookieStore = clientContext.getCookieStore();
+        HttpHost targetHost = clientContext.getTargetHost();
+        if (!(cookieStore instanceof ConcurrentCookieStore) || null == targetHost) {
+            requestAddCookies.process(request, context);
+            return;
+        }
+
+        HttpClientContext localContext = HttpClientContext.adapt(new BasicHttpContext(context));
+        localContext.setCookieStore(((ConcurrentCookieStore) cookieStore).forHost(targetHost.getHostName()));
+        requestAddCookies.process(request, localContext);
+        // 保存响应中的Cookie时需要本次请求的规范和来源
+        if (null != localContext.getCookieSpec()) {
+            context.setAttribute(HttpClientContext.COOKIE_SPEC, localContext.getCookieSpec());
+        }
+        if (null != localContext.getCookieOrigin()) {
+            context.setAttribute(HttpClientContext.COOKIE_ORIGIN, localContext.getCookieOrigin());
+        }
+
+    }
+
+}
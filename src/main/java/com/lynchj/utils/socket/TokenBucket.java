@@ -0,0 +1,73 @@
+package com.lynchj.utils.socket;
+
+/**
+ * 令牌桶, 按固定速率补充令牌, 最多积累到桶容量, 允许短时突发
+ *
+ * @author 大漠知秋
+ */
+class TokenBucket {
+
+    /** 每纳秒补充的令牌数 */
+    private final double permitsPerNano;
+
+    /** 桶容量 */
+    private final double capacity;
+
+    /** 当前令牌数 */
+    private double tokens;
+
+    /** 上次补充时间(纳秒) */
+    private long lastRefillNanos;
+
+    TokenBucket(double permitsPerSecond, int burst) {
+
+        this.permitsPerNano = permitsPerSecond / 1000000000.0;
+        this.capacity = Math.max(1, burst);
+        this.tokens = this.capacity;
+        this.lastRefillNanos = System.nanoTime();
+
+    }
+
+    /**
+     * 尝试取一个令牌, 不等待
+     *
+     * @return true: 取到令牌
+     */
+    synchronized boolean tryAcquire() {
+
+        refill();
+        if (tokens >= 1) {
+            tokens -= 1;
+            return true;
+        }
+        return false;
+
+    }
+
+    /**
+     * 当前可用令牌数
+     *
+     * @return 令牌数
+     */
+    synchronized double getAvailablePermits() {
+        refill();
+        return tokens;
+    }
+
+    double getPermitsPerSecond() {
+        return permitsPerNano * 1000000000.0;
+    }
+
+    int getBurst() {
+        return (int) capacity;
+    }
+
+    private void refill() {
+
+        long now = System.nanoTime();
+        tokens = Math.min(capacity, tokens + (now - lastRefillNanos) * permitsPerNano);
+        lastRefillNanos = now;
+
+    }
+
+}